@@ -0,0 +1,234 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bytecode store which deflates bytecode into off-heap chunks, either direct
+ * buffers or regions of a memory-mapped file. Chunks are append-only, bytecode
+ * is only inflated again when it is requested. Since target classes are
+ * registered again with identical bytecode each time mixins are re-applied,
+ * bytecode which matches the stored length and checksum is not stored again.
+ */
+class CompressedBytecodeStore implements IBytecodeStore {
+    
+    /**
+     * Location of stored bytecode
+     */
+    static final class Entry {
+        
+        final ByteBuffer chunk;
+        
+        final int offset, length, originalLength;
+        
+        final long checksum;
+        
+        Entry(ByteBuffer chunk, int offset, int length, int originalLength, long checksum) {
+            this.chunk = chunk;
+            this.offset = offset;
+            this.length = length;
+            this.originalLength = originalLength;
+            this.checksum = checksum;
+        }
+        
+    }
+    
+    /**
+     * Size of each off-heap chunk, bytecode which deflates to more than this
+     * size is given a chunk of its own
+     */
+    static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    
+    private static final Logger logger = LogManager.getLogger("mixin.agent");
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    
+    private final Inflater inflater = new Inflater();
+    
+    private final CRC32 crc = new CRC32();
+    
+    /**
+     * Backing file channel, null when using direct buffers
+     */
+    private final FileChannel channel;
+    
+    /**
+     * Chunk currently being filled
+     */
+    private ByteBuffer chunk;
+    
+    /**
+     * Deflate buffer, grown as required
+     */
+    private byte[] buffer = new byte[64 * 1024];
+    
+    /**
+     * Number of bytes mapped from the backing file
+     */
+    private long mapped;
+    
+    /**
+     * Total bytes allocated and bytes stored, for diagnostics
+     */
+    private long allocated, stored, original;
+    
+    /**
+     * Create a store backed by direct buffers
+     */
+    CompressedBytecodeStore() {
+        this.channel = null;
+    }
+    
+    /**
+     * Create a store backed by a memory-mapped file
+     * 
+     * @param file File to map, the file is truncated
+     * @throws IOException if the file cannot be opened
+     */
+    @SuppressWarnings("resource")
+    CompressedBytecodeStore(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0L);
+        this.channel = raf.getChannel();
+    }
+
+    @Override
+    public synchronized void put(String name, byte[] bytecode) {
+        this.crc.reset();
+        this.crc.update(bytecode);
+        long checksum = this.crc.getValue();
+        
+        Entry existing = this.entries.get(name);
+        if (existing != null && existing.originalLength == bytecode.length && existing.checksum == checksum) {
+            return;
+        }
+        
+        int length = this.deflate(bytecode);
+        try {
+            ByteBuffer chunk = this.reserve(length);
+            int offset = chunk.position();
+            chunk.put(this.buffer, 0, length);
+            this.entries.put(name, new Entry(chunk, offset, length, bytecode.length, checksum));
+            this.stored += length;
+            this.original += bytecode.length;
+        } catch (IOException ex) {
+            CompressedBytecodeStore.logger.error("Could not allocate storage for target class " + name, ex);
+        }
+    }
+
+    @Override
+    public synchronized byte[] get(String name) {
+        Entry entry = this.entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        
+        byte[] compressed = new byte[entry.length];
+        ByteBuffer view = entry.chunk.duplicate();
+        view.position(entry.offset);
+        view.get(compressed);
+        
+        byte[] bytecode = new byte[entry.originalLength];
+        try {
+            this.inflater.reset();
+            this.inflater.setInput(compressed);
+            for (int pos = 0; pos < bytecode.length;) {
+                int read = this.inflater.inflate(bytecode, pos, bytecode.length - pos);
+                if (read == 0 && (this.inflater.finished() || this.inflater.needsInput())) {
+                    throw new DataFormatException("Unexpected end of stream at " + pos + " of " + bytecode.length + " bytes");
+                }
+                pos += read;
+            }
+        } catch (DataFormatException ex) {
+            CompressedBytecodeStore.logger.error("Stored bytecode for target class " + name + " is corrupt", ex);
+            return null;
+        }
+        
+        return bytecode;
+    }
+    
+    /**
+     * Deflate the supplied bytecode into the deflate buffer
+     * 
+     * @return deflated length
+     */
+    private int deflate(byte[] bytecode) {
+        this.deflater.reset();
+        this.deflater.setInput(bytecode);
+        this.deflater.finish();
+        int length = 0;
+        while (!this.deflater.finished()) {
+            if (length == this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+            }
+            length += this.deflater.deflate(this.buffer, length, this.buffer.length - length);
+        }
+        return length;
+    }
+
+    /**
+     * Get a chunk with at least the specified amount of space remaining
+     */
+    private ByteBuffer reserve(int length) throws IOException {
+        if (this.chunk == null || this.chunk.remaining() < length) {
+            int size = Math.max(CompressedBytecodeStore.CHUNK_SIZE, length);
+            if (this.channel != null) {
+                this.chunk = this.channel.map(MapMode.READ_WRITE, this.mapped, size);
+                this.mapped += size;
+            } else {
+                this.chunk = ByteBuffer.allocateDirect(size);
+            }
+            this.allocated += size;
+            CompressedBytecodeStore.logger.debug("Allocated {} KB of {} bytecode storage, {} KB of bytecode stored in {} KB", size / 1024,
+                    this.channel != null ? "mapped" : "direct", this.original / 1024, this.stored / 1024);
+        }
+        return this.chunk;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s[%d classes, %d KB deflated to %d KB, %d KB allocated]", this.getClass().getSimpleName(), this.entries.size(),
+                this.original / 1024, this.stored / 1024, this.allocated / 1024);
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.agent;
+
+/**
+ * Storage for the original bytecode of mixin target classes, which the agent
+ * needs in order to re-apply mixins when a mixin is redefined. Bytecode is
+ * registered once for every target class which is loaded but is only read
+ * back when a mixin targetting the class is reloaded, so implementations are
+ * free to trade read performance for a smaller footprint.
+ * 
+ * <p>Custom implementations can be selected by specifying their fully
+ * qualified class name as the value of the <tt>mixin.hotSwap.store</tt>
+ * property, they must have a public no-arg constructor.</p>
+ */
+public interface IBytecodeStore {
+
+    /**
+     * Store the bytecode for the specified class, replacing any bytecode
+     * previously stored for the class
+     * 
+     * @param name Name of the class
+     * @param bytecode Class bytecode
+     */
+    public abstract void put(String name, byte[] bytecode);
+    
+    /**
+     * Retrieve the bytecode for the specified class
+     * 
+     * @param name Name of the class
+     * @return class bytecode, or null if no bytecode is stored for the class
+     */
+    public abstract byte[] get(String name);
+    
+}
@@ -62,7 +62,11 @@ public class MixinAgent implements IHotSwap {
             byte[] mixinBytecode = MixinAgent.classLoader.getFakeMixinBytecode(classBeingRedefined);
             if (mixinBytecode != null) {
                 List<String> targets = this.reloadMixin(className, classfileBuffer);
-                if (targets == null || !this.reApplyMixins(targets)) {
+                if (targets == null) {
+                    return MixinAgent.ERROR_BYTECODE;
+                }
+                if (!this.reApplyMixins(targets)) {
+                    this.revertMixin(className);
                     return MixinAgent.ERROR_BYTECODE;
                 }
                 
@@ -91,14 +95,28 @@ public class MixinAgent implements IHotSwap {
             return null;
         }
 
+        private void revertMixin(String className) {
+            try {
+                if (MixinAgent.this.classTransformer.revertReload(className.replace('/', '.'))) {
+                    MixinAgent.logger.info("Reverted mixin {} to its previous definition", className);
+                }
+            } catch (Throwable th) {
+                MixinAgent.logger.error("Error while reverting mixin " + className, th);
+            }
+        }
+
         /**
-         * Re-apply all mixins to the supplied list of target classes.
+         * Re-apply all mixins to the supplied list of target classes. All of
+         * the targets are transformed first and are then redefined in a single
+         * batch, if any target fails to transform then no targets are
+         * redefined.
          * 
          * @param targets Target classes to re-transform
          * @return true if all targets were transformed, false if transformation
          *          failed
          */
         private boolean reApplyMixins(List<String> targets) {
+            List<ClassDefinition> definitions = new ArrayList<ClassDefinition>(targets.size());
             for (String target : targets) {
                 String targetName = target.replace('/', '.');
                 MixinAgent.logger.debug("Re-transforming target class {}", target);
@@ -110,12 +128,25 @@ public class MixinAgent implements IHotSwap {
                         return false;
                     }
                     targetBytecode = MixinAgent.this.classTransformer.transform(null, targetName, targetBytecode);
-                    MixinAgent.instrumentation.redefineClasses(new ClassDefinition(targetClass, targetBytecode));
+                    definitions.add(new ClassDefinition(targetClass, targetBytecode));
                 } catch (Throwable th) {
-                    MixinAgent.logger.error("Error while re-transforming target class " + target, th);
+                    MixinAgent.logger.error("Error while re-transforming target class " + target + ", no targets will be redefined", th);
                     return false;
                 }
             }
+            
+            if (definitions.isEmpty()) {
+                return true;
+            }
+            
+            try {
+                // Redefinition is atomic, if this throws then none of the targets were redefined
+                MixinAgent.logger.debug("Redefining {} target classes", definitions.size());
+                MixinAgent.instrumentation.redefineClasses(definitions.toArray(new ClassDefinition[definitions.size()]));
+            } catch (Throwable th) {
+                MixinAgent.logger.error("Error while redefining " + definitions.size() + " target classes, no targets were redefined", th);
+                return false;
+            }
             return true;
         }
     }
@@ -24,6 +24,8 @@
  */
 package org.spongepowered.tools.agent;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -34,6 +36,7 @@ import org.spongepowered.asm.lib.MethodVisitor;
 import org.spongepowered.asm.lib.Opcodes;
 import org.spongepowered.asm.lib.Type;
 import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.util.Constants;
 
 /**
@@ -50,10 +53,10 @@ class MixinAgentClassLoader extends ClassLoader {
     private Map<Class<?>, byte[]> mixins = new HashMap<Class<?>, byte[]>();
 
     /**
-     * Mapping that keep track of bytecode for classes that are targeted by
-     * mixins
+     * Store that keeps track of bytecode for classes that are targeted by
+     * mixins, created when the first target is registered
      */
-    private Map<String, byte[]> targets = new HashMap<String, byte[]>();
+    private IBytecodeStore targets;
 
     /**
      * Add a fake mixin class
@@ -81,7 +84,7 @@ class MixinAgentClassLoader extends ClassLoader {
      * @param bytecode Bytecode of the target class
      */
     void addTargetClass(String name, byte[] bytecode) {
-        this.targets.put(name, bytecode);
+        this.getTargetStore().put(name, bytecode);
     }
 
     /**
@@ -101,7 +104,47 @@ class MixinAgentClassLoader extends ClassLoader {
      * @return Original bytecode
      */
     byte[] getOriginalTargetBytecode(String name) {
-        return this.targets.get(name);
+        return this.targets != null ? this.targets.get(name) : null;
+    }
+
+    private synchronized IBytecodeStore getTargetStore() {
+        if (this.targets == null) {
+            String store = MixinEnvironment.getCurrentEnvironment().getOptionValue(Option.HOT_SWAP_STORE);
+            this.targets = MixinAgentClassLoader.createTargetStore(store);
+            MixinAgentClassLoader.logger.debug("Target class bytecode will be stored in {}", this.targets.getClass().getSimpleName());
+        }
+        return this.targets;
+    }
+
+    /**
+     * Create the target bytecode store for the specified store type, falls
+     * back to a compressed store if the specified store cannot be created
+     * 
+     * @param store Store type or store class name
+     * @return new store
+     */
+    private static IBytecodeStore createTargetStore(String store) {
+        if (store == null || "compressed".equalsIgnoreCase(store)) {
+            return new CompressedBytecodeStore();
+        } else if ("heap".equalsIgnoreCase(store)) {
+            return new HeapBytecodeStore();
+        } else if ("mapped".equalsIgnoreCase(store)) {
+            try {
+                File file = File.createTempFile("mixin-hotswap-", ".bin");
+                file.deleteOnExit();
+                return new CompressedBytecodeStore(file);
+            } catch (IOException ex) {
+                MixinAgentClassLoader.logger.warn("Could not create mapped bytecode store, using direct buffers instead: {}", ex.getMessage());
+                return new CompressedBytecodeStore();
+            }
+        }
+        
+        try {
+            return (IBytecodeStore)Class.forName(store).newInstance();
+        } catch (Throwable th) {
+            MixinAgentClassLoader.logger.error("Could not create bytecode store " + store + ", using direct buffers instead", th);
+            return new CompressedBytecodeStore();
+        }
     }
 
     /**
@@ -24,7 +24,11 @@
  */
 package org.spongepowered.tools.obfuscation;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.spongepowered.asm.mixin.injection.struct.MemberInfo;
 import org.spongepowered.asm.obfuscation.mapping.IMapping;
@@ -51,6 +55,18 @@ public class ObfuscationDataProvider implements IObfuscationDataProvider {
      * Available obfuscation environments
      */
     private final List<ObfuscationEnvironment> environments;
+    
+    /**
+     * Memoised results of recursive lookups, keyed by owner, name and
+     * descriptor of the member. The memoised data is shared so must not be
+     * modified by callers
+     */
+    private final Map<String, ObfuscationData<?>> recursiveEntries = new HashMap<String, ObfuscationData<?>>();
+    
+    /**
+     * Cached superclass names of types visited during recursive lookups
+     */
+    private final Map<String, String> superClasses = new HashMap<String, String>();
 
     public ObfuscationDataProvider(IMixinAnnotationProcessor ap, List<ObfuscationEnvironment> environments) {
         this.ap = ap;
@@ -65,20 +81,26 @@ public class ObfuscationDataProvider implements IObfuscationDataProvider {
     @Override
     @SuppressWarnings("unchecked")
     public <T> ObfuscationData<T> getObfEntryRecursive(final MemberInfo targetMember) {
+        String key = ObfuscationDataProvider.getMemoKey(targetMember);
+        ObfuscationData<?> memo = this.recursiveEntries.get(key);
+        if (memo != null) {
+            return (ObfuscationData<T>)memo;
+        }
+        
         MemberInfo currentTarget = targetMember;
         ObfuscationData<String> obfTargetNames = this.getObfClass(currentTarget.owner);
         ObfuscationData<T> obfData = this.getObfEntry(currentTarget);
         try {
             while (obfData.isEmpty()) {
-                TypeHandle targetType = this.ap.getTypeProvider().getTypeHandle(currentTarget.owner);
-                if (targetType == null) {
-                    return obfData;
-                }
-                TypeHandle superClass = targetType.getSuperclass();
+                String superClass = this.getSuperClassName(currentTarget.owner);
                 if (superClass == null) {
+                    // Type not found, don't memoise since it may appear in a later round
                     return obfData;
                 }
-                currentTarget = currentTarget.move(superClass.getName());
+                if (superClass.length() == 0) {
+                    break;
+                }
+                currentTarget = currentTarget.move(superClass);
                 obfData = this.getObfEntry(currentTarget);
                 if (!obfData.isEmpty()) {
                     for (ObfuscationType type : obfData) {
@@ -92,8 +114,53 @@ public class ObfuscationDataProvider implements IObfuscationDataProvider {
             ex.printStackTrace();
             return this.getObfEntry(targetMember);
         }
+        this.recursiveEntries.put(key, obfData);
         return obfData;
     }
+    
+    /**
+     * Get the name of the superclass of the specified type, using the cached
+     * value if the type has been visited before
+     * 
+     * @param className type to get the superclass for
+     * @return superclass name, empty string if the type has no superclass or
+     *      null if the type could not be found
+     */
+    private String getSuperClassName(String className) {
+        String superClassName = this.superClasses.get(className);
+        if (superClassName == null) {
+            TypeHandle targetType = this.ap.getTypeProvider().getTypeHandle(className);
+            if (targetType == null) {
+                return null;
+            }
+            TypeHandle superClass = targetType.getSuperclass();
+            superClassName = superClass != null ? superClass.getName() : "";
+            this.superClasses.put(className, superClassName);
+        }
+        return superClassName;
+    }
+    
+    /**
+     * Get the specified method moved to the superclass of its owner
+     * 
+     * @param method method to move
+     * @return moved method or null if the method is not fully qualified or
+     *      its owner has no known superclass
+     */
+    private MemberInfo getSuperMember(MemberInfo method) {
+        if (!method.isFullyQualified()) {
+            return null;
+        }
+        String superClass = this.getSuperClassName(method.owner);
+        if (superClass == null || superClass.length() == 0) {
+            return null;
+        }
+        return new MemberInfo(method.name, superClass, method.desc, method.matchAll);
+    }
+    
+    private static String getMemoKey(MemberInfo member) {
+        return (member.isField() ? "F:" : "M:") + member.owner + "." + member.name + ":" + member.desc;
+    }
 
     /* (non-Javadoc)
      * @see org.spongepowered.tools.obfuscation.IObfuscationManager
@@ -151,10 +218,18 @@ public class ObfuscationDataProvider implements IObfuscationDataProvider {
     private ObfuscationData<MappingMethod> getRemappedMethod(MemberInfo method, boolean remapDescriptor) {
         ObfuscationData<MappingMethod> data = new ObfuscationData<MappingMethod>();
         
-        for (ObfuscationEnvironment env : this.environments) {
-            MappingMethod obfMethod = env.getObfMethod(method);
-            if (obfMethod != null) {
-                data.add(env.getType(), obfMethod);
+        // Walk the hierarchy once for all environments rather than once per
+        // environment, dropping each environment as soon as it has a mapping
+        List<ObfuscationEnvironment> pending = new ArrayList<ObfuscationEnvironment>(this.environments);
+        for (MemberInfo current = method; current != null && !pending.isEmpty(); current = this.getSuperMember(current)) {
+            MappingMethod mapping = current.asMethodMapping();
+            for (Iterator<ObfuscationEnvironment> iter = pending.iterator(); iter.hasNext();) {
+                ObfuscationEnvironment env = iter.next();
+                MappingMethod obfMethod = env.getObfMethod(mapping);
+                if (obfMethod != null) {
+                    data.add(env.getType(), obfMethod);
+                    iter.remove();
+                }
             }
         }
         
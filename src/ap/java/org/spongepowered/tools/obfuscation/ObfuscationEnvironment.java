@@ -25,8 +25,13 @@
 package org.spongepowered.tools.obfuscation;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -116,6 +121,11 @@ public abstract class ObfuscationEnvironment implements IObfuscationEnvironment
      * we can do mapping init lazily
      */
     private boolean initDone;
+    
+    /**
+     * Mappings being loaded in the background, if preloading was requested
+     */
+    private Future<List<File>> pendingMappings;
 
     protected ObfuscationEnvironment(ObfuscationType type) {
         this.type = type;
@@ -137,6 +147,25 @@ public abstract class ObfuscationEnvironment implements IObfuscationEnvironment
     
     protected abstract IMappingWriter getMappingWriter(Messager messager, Filer filer);
     
+    /**
+     * Begin loading the input mappings on the supplied executor. The result is
+     * collected the first time the mappings are required.
+     * 
+     * @param executor executor to load the mappings on
+     */
+    void preloadMappings(ExecutorService executor) {
+        if (this.initDone || this.inFileNames == null || this.pendingMappings != null) {
+            return;
+        }
+        
+        this.pendingMappings = executor.submit(new Callable<List<File>>() {
+            @Override
+            public List<File> call() throws Exception {
+                return ObfuscationEnvironment.this.readMappings();
+            }
+        });
+    }
+    
     private boolean initMappings() {
         if (!this.initDone) {
             this.initDone = true;
@@ -147,22 +176,16 @@ public abstract class ObfuscationEnvironment implements IObfuscationEnvironment
                 return false;
             }
             
-            int successCount = 0;
+            List<File> loaded = this.getPreloadedMappings();
+            if (loaded == null) {
+                loaded = this.readMappings();
+            }
             
-            for (String inputFileName : this.inFileNames) {
-                File inputFile = new File(inputFileName);
-                try {
-                    if (inputFile.isFile()) {
-                        this.ap.printMessage(Kind.NOTE, "Loading " + this.type + " mappings from " + inputFile.getAbsolutePath());
-                        this.mappingProvider.read(inputFile);
-                        successCount++;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+            for (File inputFile : loaded) {
+                this.ap.printMessage(Kind.NOTE, "Loaded " + this.type + " mappings from " + inputFile.getAbsolutePath());
             }
             
-            if (successCount < 1) {
+            if (loaded.size() < 1) {
                 this.ap.printMessage(Kind.ERROR, "No valid input files for " + this.type + " could be read, processing may not be sucessful.");
                 this.mappingProvider.clear();
             }
@@ -170,6 +193,47 @@ public abstract class ObfuscationEnvironment implements IObfuscationEnvironment
         
         return !this.mappingProvider.isEmpty();
     }
+    
+    private List<File> getPreloadedMappings() {
+        if (this.pendingMappings == null) {
+            return null;
+        }
+        
+        try {
+            return this.pendingMappings.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            ex.getCause().printStackTrace();
+        } finally {
+            this.pendingMappings = null;
+        }
+        
+        this.mappingProvider.clear();
+        return null;
+    }
+    
+    /**
+     * Read all input mapping files, does not report messages so that it can
+     * safely be called off the processor thread
+     * 
+     * @return files which were read successfully
+     */
+    private List<File> readMappings() {
+        List<File> loaded = new ArrayList<File>();
+        for (String inputFileName : this.inFileNames) {
+            File inputFile = new File(inputFileName);
+            try {
+                if (inputFile.isFile()) {
+                    this.mappingProvider.read(inputFile);
+                    loaded.add(inputFile);
+                }
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+        return loaded;
+    }
 
     /**
      * Get the type
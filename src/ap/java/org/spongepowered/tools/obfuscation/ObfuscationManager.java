@@ -26,6 +26,8 @@ package org.spongepowered.tools.obfuscation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongepowered.tools.obfuscation.interfaces.IMixinAnnotationProcessor;
 import org.spongepowered.tools.obfuscation.interfaces.IObfuscationManager;
@@ -34,6 +36,8 @@ import org.spongepowered.tools.obfuscation.interfaces.IReferenceManager;
 import org.spongepowered.tools.obfuscation.mapping.IMappingConsumer;
 import org.spongepowered.tools.obfuscation.service.ObfuscationServices;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Obfuscation Manager for mixin Annotation Processor
  */
@@ -84,6 +88,25 @@ public class ObfuscationManager implements IObfuscationManager {
                 this.environments.add(obfType.createEnvironment());
             }
         }
+        
+        this.preloadMappings();
+    }
+    
+    /**
+     * Load the mappings for all environments in parallel, each environment
+     * collects its mappings when they are first needed
+     */
+    private void preloadMappings() {
+        if (this.environments.size() < 2) {
+            return;
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(this.environments.size(),
+                new ThreadFactoryBuilder().setNameFormat("Mixin AP mapping loader %d").setDaemon(true).build());
+        for (ObfuscationEnvironment env : this.environments) {
+            env.preloadMappings(executor);
+        }
+        executor.shutdown();
     }
 
     @Override
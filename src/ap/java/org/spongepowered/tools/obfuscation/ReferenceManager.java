@@ -24,6 +24,7 @@
  */
 package org.spongepowered.tools.obfuscation;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -108,7 +109,7 @@ public class ReferenceManager implements IReferenceManager {
         
         try {
             writer = this.newWriter(this.outRefMapFileName, "refmap");
-            this.refMapper.write(writer);
+            this.refMapper.write(writer, "true".equalsIgnoreCase(this.ap.getOption(SupportedOptions.COMPACT_REFMAP)));
         } catch (IOException ex) {
             ex.printStackTrace();
         } finally {
@@ -135,7 +136,7 @@ public class ReferenceManager implements IReferenceManager {
         
         FileObject outResource = this.ap.getProcessingEnvironment().getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", fileName);
         this.ap.printMessage(Kind.NOTE, "Writing " + description + " to " + new File(outResource.toUri()).getAbsolutePath());
-        return new PrintWriter(outResource.openWriter());
+        return new PrintWriter(new BufferedWriter(outResource.openWriter()));
     }
 
     /* (non-Javadoc)
@@ -39,6 +39,7 @@ public final class SupportedOptions {
     
     public static final String TOKENS                    = "tokens";
     public static final String OUT_REFMAP_FILE           = "outRefMapFile";
+    public static final String COMPACT_REFMAP            = "compactRefMap";
     public static final String DISABLE_TARGET_VALIDATOR  = "disableTargetValidator";
     public static final String DISABLE_TARGET_EXPORT     = "disableTargetExport";
     public static final String DISABLE_OVERWRITE_CHECKER = "disableOverwriteChecker";
@@ -53,6 +54,7 @@ public final class SupportedOptions {
         options.add(
             SupportedOptions.TOKENS,
             SupportedOptions.OUT_REFMAP_FILE,
+            SupportedOptions.COMPACT_REFMAP,
             SupportedOptions.DISABLE_TARGET_VALIDATOR,
             SupportedOptions.DISABLE_TARGET_EXPORT,
             SupportedOptions.DISABLE_OVERWRITE_CHECKER,
@@ -24,18 +24,26 @@
  */
 package org.spongepowered.tools.obfuscation;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.lang.model.element.TypeElement;
@@ -43,20 +51,63 @@ import javax.lang.model.element.TypeElement;
 import org.spongepowered.tools.obfuscation.mirror.TypeHandle;
 import org.spongepowered.tools.obfuscation.mirror.TypeReference;
 
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
 import com.google.common.io.Files;
 
 /**
- * Serialisable map of classes to their associated mixins, used so that we can
- * pass target information for supermixins from one compiler session to another
+ * Map of classes to their associated mixins, used so that we can pass target
+ * information for supermixins from one compiler session to another.
+ * 
+ * <p>The map is persisted to a versioned binary database. The database is a
+ * header followed by one or more records, each record contains its own string
+ * table followed by the (target, mixin) pairs added since the previous record.
+ * Each processing round appends only the pairs it added, and the database is
+ * compacted into a single record once too many records have accumulated.
+ * Entries read from the database are only turned into {@link TypeReference}s
+ * when their target is first looked up.</p>
  */
 public class TargetMap extends HashMap<TypeReference, Set<TypeReference>> {
 
     private static final long serialVersionUID = 1L;
     
+    /**
+     * Database magic, "MXTM"
+     */
+    private static final int MAGIC = 0x4D58544D;
+    
+    /**
+     * Database format version
+     */
+    private static final int VERSION = 1;
+    
+    /**
+     * Number of records after which the database is rewritten as a single
+     * record
+     */
+    private static final int MAX_RECORDS = 32;
+    
     /**
      * Session ID, used to identify the temp file
      */
     private final String sessionId;
+    
+    /**
+     * Entries read from a database which have not been looked up yet, mapped
+     * from target name to mixin names
+     */
+    private final Map<String, List<String>> unresolved = new HashMap<String, List<String>>();
+    
+    /**
+     * Pairs added since the database was last written, mapped from target
+     * name to mixin names
+     */
+    private final Multimap<String, String> delta = LinkedHashMultimap.<String, String>create();
+    
+    /**
+     * Number of records in the session database
+     */
+    private int records;
 
     /**
      * Create a new TargetMap with a session ID based on the current system time
@@ -130,7 +181,9 @@ public class TargetMap extends HashMap<TypeReference, Set<TypeReference>> {
      */
     public void addMixin(TypeReference target, TypeReference mixin) {
         Set<TypeReference> mixins = this.getMixinsFor(target);
-        mixins.add(mixin);
+        if (mixins.add(mixin)) {
+            this.delta.put(target.getName(), mixin.getName());
+        }
     }
 
     /**
@@ -175,11 +228,22 @@ public class TargetMap extends HashMap<TypeReference, Set<TypeReference>> {
             mixins = new HashSet<TypeReference>();
             this.put(target, mixins);
         }
+        
+        List<String> pending = this.unresolved.remove(target.getName());
+        if (pending != null) {
+            for (String mixin : pending) {
+                mixins.add(new TypeReference(mixin));
+            }
+        }
+        
         return mixins;
     }
     
     /**
-     * Read upstream library mixins from a file
+     * Read upstream library mixins from a file. The file can either be a
+     * tab-separated list of mixins and their targets, or a target database
+     * written by another module, in which case the entries are merged into
+     * this map.
      * 
      * @param file File to read from
      * @throws IOException if an error occurs whilst reading the file
@@ -189,6 +253,15 @@ public class TargetMap extends HashMap<TypeReference, Set<TypeReference>> {
             return;
         }
         
+        if (TargetMap.isDatabase(file)) {
+            TargetMap imported = new TargetMap();
+            imported.readDatabase(file);
+            for (Entry<String, String> entry : imported.entries()) {
+                this.addMixin(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        
         for (String line : Files.readLines(file, Charset.defaultCharset())) {
             String[] parts = line.split("\t");
             if (parts.length == 2) {
@@ -198,60 +271,165 @@ public class TargetMap extends HashMap<TypeReference, Set<TypeReference>> {
     }
 
     /**
-     * Write this target map to temporary session file
+     * Write pending changes in this target map to the session file. Only the
+     * entries added since the last write are appended unless the file is
+     * missing or needs compacting, in which case the whole map is written.
      * 
      * @param temp Set "delete on exit" for the file
      */
     public void write(boolean temp) {
-        ObjectOutputStream oos = null;
-        FileOutputStream fout = null;
+        File sessionFile = TargetMap.getSessionFile(this.sessionId);
+        if (temp) {
+            sessionFile.deleteOnExit();
+        }
+        
         try {
-            File sessionFile = TargetMap.getSessionFile(this.sessionId);
-            if (temp) {
-                sessionFile.deleteOnExit();
+            if (this.records > 0 && this.records < TargetMap.MAX_RECORDS && sessionFile.isFile()) {
+                if (this.delta.isEmpty()) {
+                    return;
+                }
+                TargetMap.writeRecord(sessionFile, true, this.delta.entries());
+                this.records++;
+            } else {
+                File tempFile = new File(sessionFile.getPath() + ".new");
+                TargetMap.writeRecord(tempFile, false, this.entries());
+                if ((!sessionFile.delete() && sessionFile.exists()) || !tempFile.renameTo(sessionFile)) {
+                    throw new IOException("Could not replace " + sessionFile);
+                }
+                this.records = 1;
             }
-            fout = new FileOutputStream(sessionFile, true);
-            oos = new ObjectOutputStream(fout);
-            oos.writeObject(this);
-        } catch (Exception ex) {
+            this.delta.clear();
+        } catch (IOException ex) {
             ex.printStackTrace();
-        } finally {
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                }
+        }
+    }
+    
+    /**
+     * Get all (target, mixin) name pairs in this map, including entries which
+     * have not been resolved yet
+     */
+    private Collection<Entry<String, String>> entries() {
+        Multimap<String, String> entries = LinkedHashMultimap.<String, String>create();
+        for (Entry<TypeReference, Set<TypeReference>> entry : this.entrySet()) {
+            for (TypeReference mixin : entry.getValue()) {
+                entries.put(entry.getKey().getName(), mixin.getName());
             }
         }
+        for (Entry<String, List<String>> entry : this.unresolved.entrySet()) {
+            entries.putAll(entry.getKey(), entry.getValue());
+        }
+        return entries.entries();
+    }
+    
+    private static void writeRecord(File file, boolean append, Collection<Entry<String, String>> entries) throws IOException {
+        Map<String, Integer> names = new LinkedHashMap<String, Integer>();
+        int[] pairs = new int[entries.size() * 2];
+        int index = 0;
+        for (Entry<String, String> entry : entries) {
+            pairs[index++] = TargetMap.intern(names, entry.getKey());
+            pairs[index++] = TargetMap.intern(names, entry.getValue());
+        }
+        
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append)));
+        try {
+            if (!append) {
+                out.writeInt(TargetMap.MAGIC);
+                out.writeShort(TargetMap.VERSION);
+            }
+            out.writeInt(names.size());
+            for (String name : names.keySet()) {
+                out.writeUTF(name);
+            }
+            out.writeInt(entries.size());
+            for (int pair : pairs) {
+                out.writeInt(pair);
+            }
+        } finally {
+            out.close();
+        }
+    }
+    
+    private static int intern(Map<String, Integer> names, String name) {
+        Integer index = names.get(name);
+        if (index == null) {
+            index = Integer.valueOf(names.size());
+            names.put(name, index);
+        }
+        return index.intValue();
     }
     
     /**
-     * Attemp to deserialise a TargetMap from the specified file
+     * Read the records in the specified database into the unresolved entries
+     * of this map. A truncated trailing record (eg. from an interrupted write)
+     * is ignored.
      * 
-     * @param sessionFile File to read
-     * @return deserialised map or null if deserialisation failed
+     * @param file File to read
+     * @throws IOException if the file is not a target database or cannot be
+     *      read
      */
-    private static TargetMap read(File sessionFile) {
-        ObjectInputStream objectinputstream = null;
-        FileInputStream streamIn = null;
+    private void readDatabase(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
         try {
-            streamIn = new FileInputStream(sessionFile);
-            objectinputstream = new ObjectInputStream(streamIn);
-            TargetMap map = (TargetMap)objectinputstream.readObject();
-            return map;
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            if (objectinputstream != null) {
+            if (in.readInt() != TargetMap.MAGIC || in.readUnsignedShort() != TargetMap.VERSION) {
+                throw new IOException("Unsupported target database " + file);
+            }
+            
+            Map<String, List<String>> record = new HashMap<String, List<String>>();
+            while (TargetMap.hasMore(in)) {
                 try {
-                    objectinputstream .close();
-                } catch (IOException ex) {
-                    ex.printStackTrace();
+                    TargetMap.readRecord(in, record);
+                } catch (EOFException ex) {
+                    // Force the next write to rewrite the database
+                    this.records = TargetMap.MAX_RECORDS;
+                    break;
+                }
+                for (Entry<String, List<String>> entry : record.entrySet()) {
+                    List<String> mixins = this.unresolved.get(entry.getKey());
+                    if (mixins == null) {
+                        this.unresolved.put(entry.getKey(), entry.getValue());
+                    } else {
+                        mixins.addAll(entry.getValue());
+                    }
                 }
-            } 
+                record.clear();
+                this.records++;
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
+    private static void readRecord(DataInputStream in, Map<String, List<String>> record) throws IOException {
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        for (int pairs = in.readInt(); pairs > 0; pairs--) {
+            String target = names[in.readInt()];
+            String mixin = names[in.readInt()];
+            List<String> mixins = record.get(target);
+            if (mixins == null) {
+                mixins = new ArrayList<String>();
+                record.put(target, mixins);
+            }
+            mixins.add(mixin);
+        }
+    }
+    
+    private static boolean hasMore(InputStream in) throws IOException {
+        in.mark(1);
+        boolean more = in.read() != -1;
+        in.reset();
+        return more;
+    }
+    
+    private static boolean isDatabase(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            return file.length() >= 6 && in.readInt() == TargetMap.MAGIC;
+        } finally {
+            in.close();
         }
-        return null;
     }
     
     /**
@@ -267,9 +445,12 @@ public class TargetMap extends HashMap<TypeReference, Set<TypeReference>> {
         if (sessionId != null) {
             File sessionFile = TargetMap.getSessionFile(sessionId);
             if (sessionFile.exists()) {
-                TargetMap map = TargetMap.read(sessionFile);
-                if (map != null) {
+                TargetMap map = new TargetMap(sessionId);
+                try {
+                    map.readDatabase(sessionFile);
                     return map;
+                } catch (IOException ex) {
+                    ex.printStackTrace();
                 }
             }
         }
@@ -279,7 +460,7 @@ public class TargetMap extends HashMap<TypeReference, Set<TypeReference>> {
 
     private static File getSessionFile(String sessionId) {
         File tempDir = new File(System.getProperty("java.io.tmpdir"));
-        return new File(tempDir, String.format("mixin-targetdb-%s.tmp", sessionId));
+        return new File(tempDir, String.format("mixin-targetdb-%s.db", sessionId));
     }
 
 }
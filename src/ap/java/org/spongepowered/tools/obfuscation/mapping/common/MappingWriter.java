@@ -24,6 +24,7 @@
  */
 package org.spongepowered.tools.obfuscation.mapping.common;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -63,7 +64,7 @@ public abstract class MappingWriter implements IMappingWriter {
         
         FileObject outResource = this.filer.createResource(StandardLocation.CLASS_OUTPUT, "", fileName);
         this.messager.printMessage(Kind.NOTE, "Writing " + description + " to " + new File(outResource.toUri()).getAbsolutePath());
-        return new PrintWriter(outResource.openWriter());
+        return new PrintWriter(new BufferedWriter(outResource.openWriter()));
     }
 
 }
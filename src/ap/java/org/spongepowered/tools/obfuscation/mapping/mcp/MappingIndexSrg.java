@@ -0,0 +1,363 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.obfuscation.mapping.mcp;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.spongepowered.asm.mixin.throwables.MixinException;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * Pre-indexed binary form of an SRG file. The index is built once from the SRG
+ * file and cached beside it (or in the temp directory if the input directory
+ * is not writable) under a name derived from the hash of the SRG file, and is
+ * then memory-mapped and searched in place so that lookups don't require the
+ * mappings to be materialised.
+ * 
+ * <p>The index contains a header followed by one section for each entry type
+ * (see {@link #PACKAGE}, {@link #CLASS}, {@link #FIELD} and {@link #METHOD}).
+ * Each section contains the entry count followed by a table of absolute
+ * offsets to the section's entries, sorted by the UTF-8 bytes of their keys.
+ * Each entry is a length-prefixed key followed by a length-prefixed value.</p>
+ */
+final class MappingIndexSrg {
+    
+    static final int PACKAGE = 0;
+    static final int CLASS = 1;
+    static final int FIELD = 2;
+    static final int METHOD = 3;
+    
+    private static final int SECTIONS = 4;
+    
+    /**
+     * Index magic, "MXSI"
+     */
+    private static final int MAGIC = 0x4D585349;
+    
+    /**
+     * Index format version
+     */
+    private static final int VERSION = 1;
+    
+    private static final int HEADER_SIZE = 6;
+    
+    private static final String SUFFIX = ".idx";
+    
+    private static final Comparator<byte[]> KEY_ORDER = UnsignedBytes.lexicographicalComparator();
+    
+    /**
+     * Mapped index file
+     */
+    private final MappedByteBuffer buffer;
+    
+    /**
+     * Offsets of the offset tables for each section
+     */
+    private final int[] tables = new int[MappingIndexSrg.SECTIONS];
+    
+    /**
+     * Number of entries in each section
+     */
+    private final int[] counts = new int[MappingIndexSrg.SECTIONS];
+    
+    private MappingIndexSrg(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < MappingIndexSrg.HEADER_SIZE || buffer.getInt(0) != MappingIndexSrg.MAGIC
+                || (buffer.getShort(4) & 0xFFFF) != MappingIndexSrg.VERSION) {
+            throw new IOException("Invalid mapping index");
+        }
+        
+        int pos = MappingIndexSrg.HEADER_SIZE;
+        for (int section = 0; section < MappingIndexSrg.SECTIONS; section++) {
+            this.counts[section] = buffer.getInt(pos);
+            this.tables[section] = pos + 4;
+            pos = this.tables[section] + this.counts[section] * 4;
+        }
+    }
+    
+    /**
+     * Get whether the index contains no entries
+     */
+    boolean isEmpty() {
+        for (int count : this.counts) {
+            if (count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Find the value for the specified key in the specified section
+     * 
+     * @param section section to search
+     * @param key key to find
+     * @return value or null if the key is not in the index
+     */
+    String get(int section, String key) {
+        byte[] search = key.getBytes(Charsets.UTF_8);
+        int table = this.tables[section];
+        for (int low = 0, high = this.counts[section] - 1; low <= high;) {
+            int mid = (low + high) >>> 1;
+            int entry = this.buffer.getInt(table + mid * 4);
+            int cmp = this.compareKey(entry, search);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return this.readString(entry + 2 + (this.buffer.getShort(entry) & 0xFFFF));
+            }
+        }
+        return null;
+    }
+    
+    private int compareKey(int entry, byte[] search) {
+        int length = this.buffer.getShort(entry) & 0xFFFF;
+        for (int i = 0, max = Math.min(length, search.length); i < max; i++) {
+            int cmp = (this.buffer.get(entry + 2 + i) & 0xFF) - (search[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - search.length;
+    }
+    
+    private String readString(int pos) {
+        byte[] bytes = new byte[this.buffer.getShort(pos) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.buffer.get(pos + 2 + i);
+        }
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+    /**
+     * Open the index for the specified SRG file, building it first if no
+     * index for the current contents of the file exists
+     * 
+     * @param input SRG file
+     * @return mapped index
+     * @throws IOException if the index cannot be read or written
+     */
+    static MappingIndexSrg open(File input) throws IOException {
+        String hash = Files.hash(input, Hashing.sha1()).toString().substring(0, 16);
+        String prefix = input.getName() + ".";
+        String fileName = prefix + hash + MappingIndexSrg.SUFFIX;
+        
+        File index = new File(input.getAbsoluteFile().getParentFile(), fileName);
+        if (!index.isFile()) {
+            File tempIndex = new File(System.getProperty("java.io.tmpdir"), fileName);
+            if (tempIndex.isFile()) {
+                index = tempIndex;
+            } else {
+                index = MappingIndexSrg.build(input, index, tempIndex, prefix);
+            }
+        }
+        
+        try {
+            return MappingIndexSrg.map(index);
+        } catch (IOException ex) {
+            // Index is damaged, rebuild it
+            if (!index.delete()) {
+                throw ex;
+            }
+            return MappingIndexSrg.map(MappingIndexSrg.build(input, index, index, prefix));
+        }
+    }
+    
+    private static MappingIndexSrg map(File index) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(index, "r");
+        try {
+            return new MappingIndexSrg(file.getChannel().map(MapMode.READ_ONLY, 0, file.length()));
+        } finally {
+            file.close();
+        }
+    }
+    
+    /**
+     * Build the index for the specified SRG file and write it to the first
+     * writable of the supplied locations
+     */
+    private static File build(File input, File index, File fallback, String prefix) throws IOException {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Map<String, String>[] sections = new Map[MappingIndexSrg.SECTIONS];
+        for (int section = 0; section < MappingIndexSrg.SECTIONS; section++) {
+            sections[section] = new HashMap<String, String>();
+        }
+        MappingIndexSrg.parse(input, sections);
+        
+        try {
+            MappingIndexSrg.write(index, sections);
+        } catch (IOException ex) {
+            if (fallback == index) {
+                throw ex;
+            }
+            index = fallback;
+            MappingIndexSrg.write(index, sections);
+        }
+        
+        // Remove indices for previous versions of the input
+        File[] siblings = index.getParentFile().listFiles();
+        if (siblings != null) {
+            for (File sibling : siblings) {
+                String name = sibling.getName();
+                if (!sibling.equals(index) && name.startsWith(prefix) && name.endsWith(MappingIndexSrg.SUFFIX)
+                        && name.length() == index.getName().length()) {
+                    sibling.delete();
+                }
+            }
+        }
+        
+        return index;
+    }
+    
+    private static void parse(File input, Map<String, String>[] sections) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(input), Charsets.UTF_8));
+        try {
+            String[] args = new String[4];
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                
+                int argc = line.length() > 4 ? MappingIndexSrg.split(line, 4, args) : 0;
+                String type = line.length() >= 2 ? line.substring(0, 2) : line;
+                if (type.equals("PK") && argc >= 2) {
+                    sections[MappingIndexSrg.PACKAGE].put(args[0], args[1]);
+                } else if (type.equals("CL") && argc >= 2) {
+                    sections[MappingIndexSrg.CLASS].put(args[0], args[1]);
+                } else if (type.equals("FD") && argc >= 2) {
+                    sections[MappingIndexSrg.FIELD].put(args[0], args[1]);
+                } else if (type.equals("MD") && argc >= 4) {
+                    sections[MappingIndexSrg.METHOD].put(args[0] + " " + args[1], args[2] + " " + args[3]);
+                } else {
+                    throw new MixinException("Invalid SRG file: " + input);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+    
+    /**
+     * Split the space-separated arguments of an SRG line
+     */
+    private static int split(String line, int start, String[] args) {
+        int argc = 0;
+        for (int pos = start; argc < args.length && pos <= line.length();) {
+            int end = line.indexOf(' ', pos);
+            if (end < 0) {
+                end = line.length();
+            }
+            args[argc++] = line.substring(pos, end);
+            pos = end + 1;
+        }
+        return argc;
+    }
+
+    private static void write(File index, Map<String, String>[] sections) throws IOException {
+        byte[][][] keys = new byte[MappingIndexSrg.SECTIONS][][];
+        byte[][][] values = new byte[MappingIndexSrg.SECTIONS][][];
+        int pos = MappingIndexSrg.HEADER_SIZE;
+        for (int section = 0; section < MappingIndexSrg.SECTIONS; section++) {
+            MappingIndexSrg.sort(sections[section], keys, values, section);
+            pos += 4 + keys[section].length * 4;
+        }
+        
+        File tempFile = File.createTempFile(index.getName(), ".tmp", index.getParentFile());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            out.writeInt(MappingIndexSrg.MAGIC);
+            out.writeShort(MappingIndexSrg.VERSION);
+            for (int section = 0; section < MappingIndexSrg.SECTIONS; section++) {
+                out.writeInt(keys[section].length);
+                for (int entry = 0; entry < keys[section].length; entry++) {
+                    out.writeInt(pos);
+                    pos += 4 + keys[section][entry].length + values[section][entry].length;
+                }
+            }
+            for (int section = 0; section < MappingIndexSrg.SECTIONS; section++) {
+                for (int entry = 0; entry < keys[section].length; entry++) {
+                    MappingIndexSrg.writeBytes(out, keys[section][entry]);
+                    MappingIndexSrg.writeBytes(out, values[section][entry]);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        
+        if ((index.exists() && !index.delete()) || !tempFile.renameTo(index)) {
+            tempFile.delete();
+            throw new IOException("Could not write mapping index " + index);
+        }
+    }
+    
+    private static void sort(Map<String, String> section, byte[][][] keys, byte[][][] values, int index) {
+        byte[][][] entries = new byte[section.size()][][];
+        int pos = 0;
+        for (Entry<String, String> entry : section.entrySet()) {
+            entries[pos++] = new byte[][] { entry.getKey().getBytes(Charsets.UTF_8), entry.getValue().getBytes(Charsets.UTF_8) };
+        }
+        Arrays.sort(entries, new Comparator<byte[][]>() {
+            @Override
+            public int compare(byte[][] a, byte[][] b) {
+                return MappingIndexSrg.KEY_ORDER.compare(a[0], b[0]);
+            }
+        });
+        keys[index] = new byte[entries.length][];
+        values[index] = new byte[entries.length][];
+        for (int i = 0; i < entries.length; i++) {
+            keys[index][i] = entries[i][0];
+            values[index][i] = entries[i][1];
+        }
+    }
+    
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Mapping entry too long");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
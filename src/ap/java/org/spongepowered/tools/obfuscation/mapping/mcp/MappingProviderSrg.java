@@ -26,79 +26,99 @@ package org.spongepowered.tools.obfuscation.mapping.mcp;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
 
-import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
 import org.spongepowered.asm.obfuscation.mapping.mcp.MappingFieldSrg;
 import org.spongepowered.tools.obfuscation.mapping.common.MappingProvider;
 
-import com.google.common.base.Strings;
-import com.google.common.collect.BiMap;
-import com.google.common.io.Files;
-import com.google.common.io.LineProcessor;
-
 /**
  * Ported from <strong>Srg2Source</strong> (
  * <a href=\"https://github.com/MinecraftForge/Srg2Source\">
  * github.com/MinecraftForge/Srg2Source</a>).
+ * 
+ * <p>Rather than loading the SRG into maps, each input file is converted into
+ * a binary index (see {@link MappingIndexSrg}) which is cached between runs
+ * and searched in place.</p>
  */
 public class MappingProviderSrg extends MappingProvider {
+    
+    /**
+     * Indices for each file read, in the order they were read
+     */
+    private final List<MappingIndexSrg> indices = new ArrayList<MappingIndexSrg>();
 
     public MappingProviderSrg(Messager messager, Filer filer) {
         super(messager, filer);
     }
 
     @Override
-    public void read(final File input) throws IOException {
-        // Locally scoped to avoid synthetic accessor
-        final BiMap<String, String> packageMap = this.packageMap;
-        final BiMap<String, String> classMap = this.classMap;
-        final BiMap<MappingField, MappingField> fieldMap = this.fieldMap;
-        final BiMap<MappingMethod, MappingMethod> methodMap = this.methodMap;
-
-        Files.readLines(input, Charset.defaultCharset(), new LineProcessor<String>() {
-            @Override
-            public String getResult() {
-                return null;
-            }
-            
-            @Override
-            public boolean processLine(String line) throws IOException {
-                if (Strings.isNullOrEmpty(line) || line.startsWith("#")) {
-                    return true;
-                }
+    public void read(File input) throws IOException {
+        this.indices.add(MappingIndexSrg.open(input));
+    }
     
-                String type = line.substring(0, 2);
-                String[] args = line.substring(4).split(" ");
+    @Override
+    public void clear() {
+        super.clear();
+        this.indices.clear();
+    }
     
-                if (type.equals("PK")) {
-                    packageMap.forcePut(args[0], args[1]);
-                } else if (type.equals("CL")) {
-                    classMap.forcePut(args[0], args[1]);
-                } else if (type.equals("FD")) {
-                    fieldMap.forcePut(new MappingFieldSrg(args[0]).copy(), new MappingFieldSrg(args[1]).copy());
-                } else if (type.equals("MD")) {
-                    methodMap.forcePut(new MappingMethod(args[0], args[1]), new MappingMethod(args[2], args[3]));
-                } else {
-                    throw new MixinException("Invalid SRG file: " + input);
-                }
-                
-                return true;
+    @Override
+    public boolean isEmpty() {
+        for (MappingIndexSrg index : this.indices) {
+            if (!index.isEmpty()) {
+                return false;
             }
-        });
+        }
+        return super.isEmpty();
+    }
+    
+    @Override
+    public MappingMethod getMethodMapping(MappingMethod method) {
+        String mapped = this.get(MappingIndexSrg.METHOD, method.getName() + " " + method.getDesc());
+        if (mapped == null) {
+            return null;
+        }
+        int pos = mapped.indexOf(' ');
+        return new MappingMethod(mapped.substring(0, pos), mapped.substring(pos + 1));
     }
     
     @Override
     public MappingField getFieldMapping(MappingField field) {
         // SRG fields do not have descriptors so strip the field descriptor before looking up
-        if (field.getDesc() != null) {
-            field = new MappingFieldSrg(field);
+        String owner = field.getOwner();
+        String mapped = this.get(MappingIndexSrg.FIELD, owner != null ? owner + "/" + field.getName() : field.getName());
+        return mapped != null ? new MappingFieldSrg(mapped).copy() : null;
+    }
+    
+    @Override
+    public String getClassMapping(String className) {
+        return this.get(MappingIndexSrg.CLASS, className);
+    }
+    
+    @Override
+    public String getPackageMapping(String packageName) {
+        return this.get(MappingIndexSrg.PACKAGE, packageName);
+    }
+    
+    /**
+     * Look up an entry, files which were read later take precedence
+     */
+    private String get(int section, String key) {
+        if (key == null) {
+            return null;
+        }
+        for (int i = this.indices.size() - 1; i >= 0; i--) {
+            String value = this.indices.get(i).get(section, key);
+            if (value != null) {
+                return value;
+            }
         }
-        return this.fieldMap.get(field);
+        return null;
     }
 }
@@ -26,6 +26,9 @@ package org.spongepowered.tools.obfuscation.mapping.mcp;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -72,23 +75,39 @@ public class MappingWriterSrg extends MappingWriter {
     }
 
     protected void writeFieldMappings(PrintWriter writer, MappingSet<MappingField> fields) {
+        List<String> lines = new ArrayList<String>(fields.size());
         for (Pair<MappingField> field : fields) {
-            writer.println(this.formatFieldMapping(field));
+            lines.add(this.formatFieldMapping(field));
         }
+        MappingWriterSrg.writeSorted(writer, lines);
     }
 
     protected void writeMethodMappings(PrintWriter writer, MappingSet<MappingMethod> methods) {
+        List<String> lines = new ArrayList<String>(methods.size());
         for (Pair<MappingMethod> method : methods) {
-            writer.println(this.formatMethodMapping(method));
+            lines.add(this.formatMethodMapping(method));
         }
+        MappingWriterSrg.writeSorted(writer, lines);
     }
     
     protected String formatFieldMapping(Pair<MappingField> mapping) {
-        return String.format("FD: %s/%s %s/%s", mapping.from.getOwner(), mapping.from.getName(), mapping.to.getOwner(), mapping.to.getName());
+        return new StringBuilder("FD: ").append(mapping.from.getOwner()).append('/').append(mapping.from.getName()).append(' ')
+                .append(mapping.to.getOwner()).append('/').append(mapping.to.getName()).toString();
     }
     
     protected String formatMethodMapping(Pair<MappingMethod> mapping) {
-        return String.format("MD: %s %s %s %s", mapping.from.getName(), mapping.from.getDesc(), mapping.to.getName(), mapping.to.getDesc());
+        return new StringBuilder("MD: ").append(mapping.from.getName()).append(' ').append(mapping.from.getDesc()).append(' ')
+                .append(mapping.to.getName()).append(' ').append(mapping.to.getDesc()).toString();
+    }
+    
+    /**
+     * Write lines in sorted order so that the output is reproducible
+     */
+    private static void writeSorted(PrintWriter writer, List<String> lines) {
+        Collections.sort(lines);
+        for (String line : lines) {
+            writer.println(line);
+        }
     }
 
 }
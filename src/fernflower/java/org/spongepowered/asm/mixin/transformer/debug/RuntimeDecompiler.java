@@ -26,6 +26,9 @@ package org.spongepowered.asm.mixin.transformer.debug;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.jar.Manifest;
 
@@ -67,26 +70,43 @@ public class RuntimeDecompiler extends IFernflowerLogger implements IDecompiler,
     }
 
     @Override
-    public void decompile(final File file) {
+    public void decompile(File file) {
         try {
-            Fernflower fernflower = new Fernflower(new IBytecodeProvider() {
-                
-                private byte[] byteCode;
-                
-                @Override
-                public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
-                    if (this.byteCode == null) {
-                        this.byteCode = InterpreterUtil.getBytes(new File(externalPath));
-                    }
-                    return this.byteCode;
+            this.decompile(Collections.<File>singletonList(file));
+        } catch (Throwable ex) {
+            this.logger.warn("Decompilation error while processing {}", file.getName());
+        }
+    }
+
+    /**
+     * Decompile a batch of class files using a single decompiler context
+     * 
+     * @param files .class files to decompile
+     */
+    protected void decompile(Collection<File> files) {
+        Fernflower fernflower = new Fernflower(new IBytecodeProvider() {
+            
+            private final Map<String, byte[]> byteCode = new HashMap<String, byte[]>();
+            
+            @Override
+            public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
+                byte[] bytes = this.byteCode.get(externalPath);
+                if (bytes == null) {
+                    bytes = InterpreterUtil.getBytes(new File(externalPath));
+                    this.byteCode.put(externalPath, bytes);
                 }
-                
-            }, this, this.options, this);
+                return bytes;
+            }
             
-            fernflower.getStructContext().addSpace(file, true);
+        }, this, this.options, this);
+        
+        try {
+            for (File file : files) {
+                fernflower.getStructContext().addSpace(file, true);
+            }
             fernflower.decompileContext();
-        } catch (Throwable ex) {
-            this.logger.warn("Decompilation error while processing {}", file.getName());
+        } finally {
+            fernflower.clearContext();
         }
     }
 
@@ -26,49 +26,161 @@ package org.spongepowered.asm.mixin.transformer.debug;
 
 import java.io.File;
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+
+import com.google.common.collect.Sets;
 
 /**
- * Asynchronous decompiler, runs mixin export task in a separate thread to avoid
- * slowing down loading time
+ * Asynchronous decompiler, runs mixin export task in a pool of worker threads
+ * to avoid slowing down loading time. Each worker takes classes from a bounded
+ * queue in batches and decompiles each batch in a single decompiler context.
+ * Classes which are exported again (eg. by the hot-swap agent) while they are
+ * still waiting in the queue are only decompiled once.
  */
 public class RuntimeDecompilerAsync extends RuntimeDecompiler implements Runnable, UncaughtExceptionHandler {
     
-    private final BlockingQueue<File> queue = new LinkedBlockingQueue<File>();
+    /**
+     * Behaviour when the queue is full
+     */
+    enum Policy {
+        
+        /**
+         * Wait for space in the queue
+         */
+        BLOCK,
+        
+        /**
+         * Discard the class
+         */
+        DROP,
+        
+        /**
+         * Decompile the class on the calling thread
+         */
+        CALLER;
+        
+        static Policy parse(String value) {
+            try {
+                return Policy.valueOf(value.trim().toUpperCase());
+            } catch (Exception ex) {
+                return Policy.BLOCK;
+            }
+        }
+        
+    }
+    
+    /**
+     * Maximum number of classes a worker will decompile in one context
+     */
+    private static final int MAX_BATCH_SIZE = 16;
+    
+    /**
+     * Upper limit for the number of worker threads
+     */
+    private static final int MAX_THREADS = 8;
     
-    private final Thread thread;
+    private final BlockingQueue<File> queue;
     
-    private boolean run = true;
+    /**
+     * Paths of files which are currently in the queue, used to skip files
+     * which are exported again before they have been decompiled
+     */
+    private final Set<String> pending = Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    private final Policy policy;
+    
+    private final Thread[] threads;
+    
+    private final AtomicInteger dropped = new AtomicInteger();
+    
+    private volatile boolean run = true;
 
     public RuntimeDecompilerAsync(File outputPath) {
         super(outputPath);
-        this.thread = new Thread(this, "Decompiler thread");
-        this.thread.setDaemon(true);
-        this.thread.setPriority(Thread.MIN_PRIORITY);
-        this.thread.setUncaughtExceptionHandler(this);
-        this.thread.start();
+        MixinEnvironment env = MixinEnvironment.getCurrentEnvironment();
+        this.queue = new LinkedBlockingQueue<File>(RuntimeDecompilerAsync.parseInt(env.getOptionValue(Option.DEBUG_EXPORT_DECOMPILE_QUEUE), 1024, 1,
+                Integer.MAX_VALUE));
+        this.policy = Policy.parse(env.getOptionValue(Option.DEBUG_EXPORT_DECOMPILE_POLICY));
+        this.threads = new Thread[RuntimeDecompilerAsync.parseInt(env.getOptionValue(Option.DEBUG_EXPORT_DECOMPILE_THREADS), 1, 1,
+                RuntimeDecompilerAsync.MAX_THREADS)];
+        for (int i = 0; i < this.threads.length; i++) {
+            Thread thread = new Thread(this, this.threads.length > 1 ? "Decompiler thread " + (i + 1) : "Decompiler thread");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setUncaughtExceptionHandler(this);
+            thread.start();
+            this.threads[i] = thread;
+        }
     }
 
     @Override
     public void decompile(File file) {
-        if (this.run) {
-            this.queue.offer(file);
-        } else {
+        if (!this.run) {
             super.decompile(file);
+            return;
+        }
+        
+        String path = file.getAbsolutePath();
+        if (!this.pending.add(path)) {
+            return;
+        }
+        
+        if (this.policy == Policy.BLOCK) {
+            try {
+                this.queue.put(file);
+            } catch (InterruptedException ex) {
+                this.pending.remove(path);
+                Thread.currentThread().interrupt();
+            }
+        } else if (!this.queue.offer(file)) {
+            this.pending.remove(path);
+            if (this.policy == Policy.CALLER) {
+                super.decompile(file);
+            } else if (this.dropped.getAndIncrement() == 0) {
+                this.logger.warn("Decompiler queue is full, some exported classes will not be decompiled");
+            }
         }
     }
 
     @Override
     public void run() {
+        List<File> batch = new ArrayList<File>(RuntimeDecompilerAsync.MAX_BATCH_SIZE);
         while (this.run) {
             try {
-                File file = this.queue.take();
-                super.decompile(file);
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch, RuntimeDecompilerAsync.MAX_BATCH_SIZE - 1);
+                for (File file : batch) {
+                    this.pending.remove(file.getAbsolutePath());
+                }
+                this.decompileBatch(batch);
             } catch (InterruptedException ex) {
                 this.run = false;
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void decompileBatch(List<File> batch) {
+        try {
+            this.decompile(batch);
+        } catch (Throwable th) {
+            if (batch.size() == 1) {
+                this.logger.warn("Decompilation error while processing {}", batch.get(0).getName());
+                return;
+            }
+            // Retry individually so that one bad class doesn't spoil the batch
+            for (File file : batch) {
+                super.decompile(file);
             }
         }
     }
@@ -82,8 +194,22 @@ public class RuntimeDecompilerAsync extends RuntimeDecompiler implements Runnabl
 
     private void flush() {
         this.run = false;
+        for (Thread thread : this.threads) {
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
         for (File file = null; (file = this.queue.poll()) != null;) {
+            this.pending.remove(file.getAbsolutePath());
             this.decompile(file);
         }
     }
+    
+    private static int parseInt(String value, int defaultValue, int min, int max) {
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value.trim())));
+        } catch (Exception ex) {
+            return defaultValue;
+        }
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.launchwrapper.LaunchClassLoader;
+
+/**
+ * Stand-in for the launch classloader used by the benchmarks. Class bytecode
+ * and resources generated by the benchmarks are served from memory so that
+ * the mixin subsystem can be driven without a game or a real launch
+ * environment on the classpath.
+ */
+public class BenchmarkClassLoader extends LaunchClassLoader {
+    
+    /**
+     * Generated class bytecode, keyed by binary name
+     */
+    private final Map<String, byte[]> classes = new HashMap<String, byte[]>();
+    
+    /**
+     * Generated resources, keyed by resource path
+     */
+    private final Map<String, byte[]> resources = new HashMap<String, byte[]>();
+
+    public BenchmarkClassLoader() {
+        super(new URL[0]);
+    }
+    
+    /**
+     * Register generated bytecode for the specified class
+     * 
+     * @param className Class name, either internal or binary format
+     * @param bytes Class bytecode
+     */
+    public void addClass(String className, byte[] bytes) {
+        this.classes.put(className.replace('/', '.'), bytes);
+    }
+    
+    /**
+     * Register a generated resource
+     * 
+     * @param path Resource path
+     * @param data Resource contents
+     */
+    public void addResource(String path, byte[] data) {
+        this.resources.put(path, data);
+    }
+    
+    /* (non-Javadoc)
+     * @see net.minecraft.launchwrapper.LaunchClassLoader
+     *      #getClassBytes(java.lang.String)
+     */
+    @Override
+    public byte[] getClassBytes(String name) throws IOException {
+        byte[] bytes = this.classes.get(name.replace('/', '.'));
+        return bytes != null ? bytes : super.getClassBytes(name);
+    }
+    
+    /* (non-Javadoc)
+     * @see java.lang.ClassLoader#getResourceAsStream(java.lang.String)
+     */
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        byte[] data = this.resources.get(name);
+        return data != null ? new ByteArrayInputStream(data) : super.getResourceAsStream(name);
+    }
+    
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.spongepowered.asm.launch.Blackboard;
+import org.spongepowered.asm.launch.MixinBootstrap;
+
+import net.minecraft.launchwrapper.ITweaker;
+import net.minecraft.launchwrapper.Launch;
+
+/**
+ * Bootstraps the mixin subsystem against a {@link BenchmarkClassLoader} in
+ * place of the launch classloader, with an empty tweak list on the blackboard
+ * as if launched without any tweakers. The subsystem can only be bootstrapped once
+ * per VM, so all benchmarks share the same environment and register their own
+ * generated classes with the shared loader.
+ */
+public final class BenchmarkEnvironment {
+    
+    private static BenchmarkClassLoader classLoader;
+
+    private BenchmarkEnvironment() {}
+    
+    /**
+     * Initialise the benchmark environment if it is not already initialised
+     * 
+     * @return the shared benchmark classloader
+     */
+    public static synchronized BenchmarkClassLoader init() {
+        if (BenchmarkEnvironment.classLoader == null) {
+            BenchmarkEnvironment.classLoader = new BenchmarkClassLoader();
+            Launch.classLoader = BenchmarkEnvironment.classLoader;
+            Launch.blackboard = new HashMap<String, Object>();
+            Launch.blackboard.put(Blackboard.Keys.TWEAKCLASSES, new ArrayList<String>());
+            Launch.blackboard.put(Blackboard.Keys.TWEAKS, new ArrayList<ITweaker>());
+            MixinBootstrap.init();
+        }
+        
+        return BenchmarkEnvironment.classLoader;
+    }
+    
+}
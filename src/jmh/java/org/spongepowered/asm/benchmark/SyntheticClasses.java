@@ -0,0 +1,370 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.spongepowered.asm.lib.AnnotationVisitor;
+import org.spongepowered.asm.lib.ClassWriter;
+import org.spongepowered.asm.lib.Label;
+import org.spongepowered.asm.lib.MethodVisitor;
+import org.spongepowered.asm.lib.Opcodes;
+import org.spongepowered.asm.lib.Type;
+
+/**
+ * Generates the synthetic classes used by the benchmarks. Target methods are
+ * shaped like typical game code: a handful of locals, a call whose result is
+ * stored, a loop (so that the method carries stack map frames) and a call
+ * with several arguments feeding the return value. This gives every injector
+ * type used by the benchmarks a realistic injection point.
+ */
+public final class SyntheticClasses {
+    
+    /**
+     * Descriptor of the generated target methods, <tt>int (int, String)</tt>
+     */
+    public static final String TARGET_METHOD_DESC = "(ILjava/lang/String;)I";
+    
+    /**
+     * Method called by each target method, used as a redirect target
+     */
+    public static final String COMPUTE = "compute";
+    
+    /**
+     * Method called by each target method, used as a modify arg target
+     */
+    public static final String COMBINE = "combine";
+    
+    private static final String OBJECT = "java/lang/Object";
+    private static final String STRING = "java/lang/String";
+    
+    private static final String MIXIN = "Lorg/spongepowered/asm/mixin/Mixin;";
+    private static final String INJECT = "Lorg/spongepowered/asm/mixin/injection/Inject;";
+    private static final String REDIRECT = "Lorg/spongepowered/asm/mixin/injection/Redirect;";
+    private static final String MODIFY_ARG = "Lorg/spongepowered/asm/mixin/injection/ModifyArg;";
+    private static final String AT = "Lorg/spongepowered/asm/mixin/injection/At;";
+    private static final String CALLBACK_INFO_RETURNABLE = "Lorg/spongepowered/asm/mixin/injection/callback/CallbackInfoReturnable;";
+
+    private SyntheticClasses() {}
+    
+    /**
+     * Get the name of the target method with the specified index
+     * 
+     * @param index method index
+     * @return method name
+     */
+    public static String targetMethod(int index) {
+        return "method" + index;
+    }
+    
+    /**
+     * Generate a target class
+     * 
+     * @param className Internal name of the class to generate
+     * @param methods Number of target methods to generate
+     * @param extraLocals Number of additional locals to declare in each target
+     *      method, alternating between <tt>String</tt> and <tt>int</tt>
+     * @return class bytecode
+     */
+    public static byte[] target(String className, int methods, int extraLocals) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, className, null, SyntheticClasses.OBJECT, null);
+        SyntheticClasses.constructor(cw, SyntheticClasses.OBJECT);
+        
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, SyntheticClasses.COMPUTE, "(I)I", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, SyntheticClasses.COMBINE, "(II)I", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitVarInsn(Opcodes.ILOAD, 2);
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        
+        for (int index = 0; index < methods; index++) {
+            SyntheticClasses.targetMethod(cw, className, index, extraLocals);
+        }
+        
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void targetMethod(ClassWriter cw, String className, int index, int extraLocals) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, SyntheticClasses.targetMethod(index), SyntheticClasses.TARGET_METHOD_DESC, null,
+                null);
+        mv.visitCode();
+        Label start = new Label(), loop = new Label(), end = new Label(), finish = new Label();
+        mv.visitLabel(start);
+        
+        // int c = <index>;
+        mv.visitLdcInsn(Integer.valueOf(index));
+        mv.visitVarInsn(Opcodes.ISTORE, 3);
+        Label cStart = SyntheticClasses.label(mv);
+        
+        // int d = b.length();
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, SyntheticClasses.STRING, "length", "()I", false);
+        mv.visitVarInsn(Opcodes.ISTORE, 4);
+        Label dStart = SyntheticClasses.label(mv);
+        
+        // int e = this.compute(a);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, SyntheticClasses.COMPUTE, "(I)I", false);
+        mv.visitVarInsn(Opcodes.ISTORE, 5);
+        Label eStart = SyntheticClasses.label(mv);
+        
+        Label[] extraStarts = new Label[extraLocals];
+        for (int extra = 0; extra < extraLocals; extra++) {
+            if (extra % 2 == 0) {
+                mv.visitVarInsn(Opcodes.ALOAD, 2);
+                mv.visitVarInsn(Opcodes.ASTORE, 6 + extra);
+            } else {
+                mv.visitVarInsn(Opcodes.ILOAD, 1);
+                mv.visitLdcInsn(Integer.valueOf(extra));
+                mv.visitInsn(Opcodes.IADD);
+                mv.visitVarInsn(Opcodes.ISTORE, 6 + extra);
+            }
+            extraStarts[extra] = SyntheticClasses.label(mv);
+        }
+
+        // for (int i = 0; i < a; i++) e += i;
+        int counter = 6 + extraLocals;
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitVarInsn(Opcodes.ISTORE, counter);
+        mv.visitLabel(loop);
+        mv.visitVarInsn(Opcodes.ILOAD, counter);
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+        mv.visitVarInsn(Opcodes.ILOAD, 5);
+        mv.visitVarInsn(Opcodes.ILOAD, counter);
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitVarInsn(Opcodes.ISTORE, 5);
+        mv.visitIincInsn(counter, 1);
+        mv.visitJumpInsn(Opcodes.GOTO, loop);
+        mv.visitLabel(end);
+        
+        // return this.combine(e, c);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ILOAD, 5);
+        mv.visitVarInsn(Opcodes.ILOAD, 3);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, SyntheticClasses.COMBINE, "(II)I", false);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitLabel(finish);
+        
+        mv.visitLocalVariable("this", "L" + className + ";", null, start, finish, 0);
+        mv.visitLocalVariable("a", "I", null, start, finish, 1);
+        mv.visitLocalVariable("b", "L" + SyntheticClasses.STRING + ";", null, start, finish, 2);
+        mv.visitLocalVariable("c", "I", null, cStart, finish, 3);
+        mv.visitLocalVariable("d", "I", null, dStart, finish, 4);
+        mv.visitLocalVariable("e", "I", null, eStart, finish, 5);
+        for (int extra = 0; extra < extraLocals; extra++) {
+            String desc = extra % 2 == 0 ? "L" + SyntheticClasses.STRING + ";" : "I";
+            mv.visitLocalVariable("x" + extra, desc, null, extraStarts[extra], finish, 6 + extra);
+        }
+        mv.visitLocalVariable("i", "I", null, loop, end, counter);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    /**
+     * Generate a mixin class targetting a class generated by {@link #target}.
+     * Injectors are spread evenly across the target methods and cycle through
+     * {@link org.spongepowered.asm.mixin.injection.Inject Inject} at HEAD,
+     * {@link org.spongepowered.asm.mixin.injection.Redirect Redirect} of the
+     * <tt>compute</tt> call and
+     * {@link org.spongepowered.asm.mixin.injection.ModifyArg ModifyArg} on the
+     * <tt>combine</tt> call.
+     * 
+     * @param className Internal name of the mixin class to generate
+     * @param targetName Internal name of the target class
+     * @param methods Number of methods in the target class
+     * @param injectors Number of injectors to generate, must not exceed the
+     *      number of target methods
+     * @return class bytecode
+     */
+    public static byte[] mixin(String className, String targetName, int methods, int injectors) {
+        if (injectors > methods) {
+            throw new IllegalArgumentException("Cannot generate " + injectors + " injectors for " + methods + " target methods");
+        }
+        
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | Opcodes.ACC_ABSTRACT, className, null, SyntheticClasses.OBJECT, null);
+        
+        AnnotationVisitor mixin = cw.visitAnnotation(SyntheticClasses.MIXIN, false);
+        AnnotationVisitor value = mixin.visitArray("value");
+        value.visit(null, Type.getObjectType(targetName));
+        value.visitEnd();
+        mixin.visitEnd();
+        
+        SyntheticClasses.constructor(cw, SyntheticClasses.OBJECT);
+        
+        String computeTarget = "L" + targetName + ";" + SyntheticClasses.COMPUTE + "(I)I";
+        String combineTarget = "L" + targetName + ";" + SyntheticClasses.COMBINE + "(II)I";
+        int step = methods / Math.max(injectors, 1);
+        
+        for (int index = 0; index < injectors; index++) {
+            String method = SyntheticClasses.targetMethod(index * step);
+            MethodVisitor mv;
+            switch (index % 3) {
+                case 0:
+                    mv = cw.visitMethod(Opcodes.ACC_PRIVATE, "onMethod" + index, "(ILjava/lang/String;"
+                            + SyntheticClasses.CALLBACK_INFO_RETURNABLE + ")V", null, null);
+                    AnnotationVisitor inject = mv.visitAnnotation(SyntheticClasses.INJECT, true);
+                    inject.visit("method", method);
+                    AnnotationVisitor at = inject.visitArray("at");
+                    SyntheticClasses.at(at.visitAnnotation(null, SyntheticClasses.AT), "HEAD", null);
+                    at.visitEnd();
+                    inject.visitEnd();
+                    mv.visitCode();
+                    mv.visitInsn(Opcodes.RETURN);
+                    break;
+                    
+                case 1:
+                    mv = cw.visitMethod(Opcodes.ACC_PRIVATE, "redirectCompute" + index, "(L" + targetName + ";I)I", null, null);
+                    AnnotationVisitor redirect = mv.visitAnnotation(SyntheticClasses.REDIRECT, true);
+                    redirect.visit("method", method);
+                    SyntheticClasses.at(redirect.visitAnnotation("at", SyntheticClasses.AT), "INVOKE", computeTarget);
+                    redirect.visitEnd();
+                    mv.visitCode();
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    mv.visitVarInsn(Opcodes.ILOAD, 2);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, targetName, SyntheticClasses.COMPUTE, "(I)I", false);
+                    mv.visitInsn(Opcodes.IRETURN);
+                    break;
+                    
+                default:
+                    mv = cw.visitMethod(Opcodes.ACC_PRIVATE, "modifyCombine" + index, "(I)I", null, null);
+                    AnnotationVisitor modifyArg = mv.visitAnnotation(SyntheticClasses.MODIFY_ARG, true);
+                    modifyArg.visit("method", method);
+                    SyntheticClasses.at(modifyArg.visitAnnotation("at", SyntheticClasses.AT), "INVOKE", combineTarget);
+                    modifyArg.visit("index", Integer.valueOf(1));
+                    modifyArg.visitEnd();
+                    mv.visitCode();
+                    mv.visitVarInsn(Opcodes.ILOAD, 1);
+                    mv.visitInsn(Opcodes.IRETURN);
+                    break;
+            }
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+    
+    /**
+     * Generate a linear class hierarchy. Class <tt>n</tt> extends class
+     * <tt>n - 1</tt> and the first class extends the supplied superclass. Each
+     * class declares <tt>methods</tt> methods named <tt>level&lt;n&gt;_&lt;m&gt;
+     * </tt> with the descriptor <tt>()V</tt>.
+     * 
+     * @param prefix Internal name prefix for the generated classes, the depth
+     *      of each class is appended
+     * @param superName Superclass of the root of the hierarchy
+     * @param depth Number of classes to generate
+     * @param methods Number of methods to declare in each class
+     * @return generated classes in hierarchy order, keyed by internal name
+     */
+    public static Map<String, byte[]> hierarchy(String prefix, String superName, int depth, int methods) {
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (int level = 0; level < depth; level++) {
+            String className = prefix + level;
+            String[] methodNames = new String[methods];
+            for (int index = 0; index < methods; index++) {
+                methodNames[index] = SyntheticClasses.hierarchyMethod(level, index);
+            }
+            classes.put(className, SyntheticClasses.simpleClass(className, level > 0 ? prefix + (level - 1) : superName, methodNames));
+        }
+        return classes;
+    }
+    
+    /**
+     * Get the name of a method generated by {@link #hierarchy}
+     * 
+     * @param level depth of the declaring class
+     * @param index method index
+     * @return method name
+     */
+    public static String hierarchyMethod(int level, int index) {
+        return "level" + level + "_" + index;
+    }
+    
+    /**
+     * Generate a class declaring empty <tt>()V</tt> methods with the supplied
+     * names
+     * 
+     * @param className Internal name of the class to generate
+     * @param superName Internal name of the superclass
+     * @param methodNames Names of the methods to declare
+     * @return class bytecode
+     */
+    public static byte[] simpleClass(String className, String superName, String... methodNames) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, className, null, superName, null);
+        SyntheticClasses.constructor(cw, superName);
+        for (String methodName : methodNames) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, methodName, "()V", null, null);
+            mv.visitCode();
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void constructor(ClassWriter cw, String superName) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void at(AnnotationVisitor at, String value, String target) {
+        at.visit("value", value);
+        if (target != null) {
+            at.visit("target", target);
+        }
+        at.visitEnd();
+    }
+
+    private static Label label(MethodVisitor mv) {
+        Label label = new Label();
+        mv.visitLabel(label);
+        return label;
+    }
+    
+}
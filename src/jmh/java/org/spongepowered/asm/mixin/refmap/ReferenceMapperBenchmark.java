@@ -0,0 +1,110 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.refmap;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link ReferenceMapper#remap} lookups against a large refmap, both
+ * with an owner class (the common case) and without (which scans every class
+ * in the refmap).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReferenceMapperBenchmark {
+    
+    private static final int QUERIES = 1024;
+    
+    @Param({"1000"})
+    public int classes;
+    
+    @Param({"20"})
+    public int mappings;
+    
+    private ReferenceMapper refMap;
+    
+    private String[] owners, references;
+    
+    private int next;
+    
+    @Setup
+    public void setup() {
+        this.refMap = new ReferenceMapper();
+        for (int owner = 0; owner < this.classes; owner++) {
+            for (int index = 0; index < this.mappings; index++) {
+                String reference = ReferenceMapperBenchmark.reference(owner, index);
+                this.refMap.addMapping(null, ReferenceMapperBenchmark.owner(owner), reference, "func_" + owner + "_" + index + "_a(I)V");
+                this.refMap.addMapping("searge", ReferenceMapperBenchmark.owner(owner), reference, "func_" + owner + "_" + index + "_b(I)V");
+            }
+        }
+        
+        Random random = new Random(0L);
+        this.owners = new String[ReferenceMapperBenchmark.QUERIES];
+        this.references = new String[ReferenceMapperBenchmark.QUERIES];
+        for (int query = 0; query < ReferenceMapperBenchmark.QUERIES; query++) {
+            int owner = random.nextInt(this.classes);
+            this.owners[query] = ReferenceMapperBenchmark.owner(owner);
+            this.references[query] = ReferenceMapperBenchmark.reference(owner, random.nextInt(this.mappings));
+        }
+    }
+    
+    @Benchmark
+    public String remap() {
+        int query = this.next++ & (ReferenceMapperBenchmark.QUERIES - 1);
+        return this.refMap.remap(this.owners[query], this.references[query]);
+    }
+    
+    @Benchmark
+    public String remapWithContext() {
+        int query = this.next++ & (ReferenceMapperBenchmark.QUERIES - 1);
+        return this.refMap.remapWithContext("searge", this.owners[query], this.references[query]);
+    }
+    
+    @Benchmark
+    public String remapWithoutOwner() {
+        int query = this.next++ & (ReferenceMapperBenchmark.QUERIES - 1);
+        return this.refMap.remap(null, this.references[query]);
+    }
+
+    private static String owner(int owner) {
+        return "com/example/mixin/BenchMixin" + owner;
+    }
+
+    private static String reference(int owner, int index) {
+        return "method" + owner + "_" + index + "(I)V";
+    }
+    
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.spongepowered.asm.benchmark.BenchmarkClassLoader;
+import org.spongepowered.asm.benchmark.BenchmarkEnvironment;
+import org.spongepowered.asm.benchmark.SyntheticClasses;
+import org.spongepowered.asm.mixin.transformer.ClassInfo.Method;
+import org.spongepowered.asm.mixin.transformer.ClassInfo.SearchType;
+
+/**
+ * Measures {@link ClassInfo#findMethodInHierarchy} from the leaf of a linear
+ * hierarchy, for a method declared at the root (worst-case hit) and for a
+ * method which does not exist (full walk). Class metadata is loaded during
+ * setup so only the hierarchy walk is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClassInfoBenchmark {
+    
+    @Param({"4", "16", "64"})
+    public int depth;
+    
+    @Param({"50"})
+    public int methods;
+    
+    private ClassInfo leaf;
+    
+    private String rootMethod;
+    
+    @Setup
+    public void setup() {
+        BenchmarkClassLoader classLoader = BenchmarkEnvironment.init();
+        String prefix = "bench/hierarchy/D" + this.depth + "M" + this.methods + "_";
+        for (Entry<String, byte[]> entry : SyntheticClasses.hierarchy(prefix, "java/lang/Object", this.depth, this.methods).entrySet()) {
+            classLoader.addClass(entry.getKey(), entry.getValue());
+        }
+        
+        this.leaf = ClassInfo.forName(prefix + (this.depth - 1));
+        this.rootMethod = SyntheticClasses.hierarchyMethod(0, this.methods - 1);
+        if (this.findRootMethod() == null) {
+            throw new IllegalStateException("Benchmark hierarchy for " + this.leaf + " is incomplete");
+        }
+    }
+    
+    @Benchmark
+    public Method findRootMethod() {
+        return this.leaf.findMethodInHierarchy(this.rootMethod, "()V", SearchType.ALL_CLASSES);
+    }
+    
+    @Benchmark
+    public Method findMissingMethod() {
+        return this.leaf.findMethodInHierarchy("missing", "()V", SearchType.ALL_CLASSES);
+    }
+    
+}
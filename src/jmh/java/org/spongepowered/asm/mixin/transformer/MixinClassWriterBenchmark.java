@@ -0,0 +1,84 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.spongepowered.asm.benchmark.BenchmarkClassLoader;
+import org.spongepowered.asm.benchmark.BenchmarkEnvironment;
+import org.spongepowered.asm.benchmark.SyntheticClasses;
+
+/**
+ * Measures {@link MixinClassWriter#getCommonSuperClass} for two leaf classes
+ * in sibling hierarchies which only share their root, which is the slowest
+ * case encountered during frame computation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MixinClassWriterBenchmark {
+    
+    @Param({"4", "16", "64"})
+    public int depth;
+    
+    private MixinClassWriter writer;
+    
+    private String left, right;
+    
+    @Setup
+    public void setup() {
+        BenchmarkClassLoader classLoader = BenchmarkEnvironment.init();
+        String base = "bench/frames/D" + this.depth + "_Base";
+        classLoader.addClass(base, SyntheticClasses.simpleClass(base, "java/lang/Object"));
+        for (String side : new String[] { "L", "R" }) {
+            String prefix = "bench/frames/D" + this.depth + "_" + side;
+            for (Entry<String, byte[]> entry : SyntheticClasses.hierarchy(prefix, base, this.depth, 1).entrySet()) {
+                classLoader.addClass(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        this.left = "bench/frames/D" + this.depth + "_L" + (this.depth - 1);
+        this.right = "bench/frames/D" + this.depth + "_R" + (this.depth - 1);
+        this.writer = new MixinClassWriter(0);
+        if (!base.equals(this.commonSuperClass())) {
+            throw new IllegalStateException("Unexpected common superclass for " + this.left + " and " + this.right);
+        }
+    }
+    
+    @Benchmark
+    public String commonSuperClass() {
+        return this.writer.getCommonSuperClass(this.left, this.right);
+    }
+    
+}
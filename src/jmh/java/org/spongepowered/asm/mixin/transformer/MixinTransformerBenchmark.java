@@ -0,0 +1,102 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.spongepowered.asm.benchmark.BenchmarkClassLoader;
+import org.spongepowered.asm.benchmark.BenchmarkEnvironment;
+import org.spongepowered.asm.benchmark.SyntheticClasses;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.Mixins;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Measures {@link MixinTransformer#transform} applying a single mixin with
+ * {@value #INJECTORS} injectors to a target class with {@value #METHODS}
+ * methods. Configs are selected and the mixin prepared during setup, so each
+ * invocation measures reading the target, applying the mixin and writing the
+ * transformed class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MixinTransformerBenchmark {
+    
+    static final int METHODS = 2000;
+    
+    static final int INJECTORS = 200;
+    
+    static final String CONFIG = "mixins.benchmark.json";
+    
+    static final String TARGET = "bench/transform/Target";
+    
+    static final String MIXIN_PACKAGE = "bench.transform.mixins";
+    
+    static final String MIXIN = "TargetMixin";
+    
+    private MixinTransformer transformer;
+    
+    private String targetName;
+
+    private byte[] targetBytes;
+    
+    @Setup
+    public void setup() {
+        BenchmarkClassLoader classLoader = BenchmarkEnvironment.init();
+        this.targetName = MixinTransformerBenchmark.TARGET.replace('/', '.');
+        this.targetBytes = SyntheticClasses.target(MixinTransformerBenchmark.TARGET, MixinTransformerBenchmark.METHODS, 4);
+        classLoader.addClass(MixinTransformerBenchmark.TARGET, this.targetBytes);
+        
+        String mixinName = (MixinTransformerBenchmark.MIXIN_PACKAGE + "." + MixinTransformerBenchmark.MIXIN).replace('.', '/');
+        classLoader.addClass(mixinName, SyntheticClasses.mixin(mixinName, MixinTransformerBenchmark.TARGET, MixinTransformerBenchmark.METHODS,
+                MixinTransformerBenchmark.INJECTORS));
+        
+        // The benchmark environment never leaves PREINIT, so the config targets it explicitly
+        String config = String.format("{\"required\":true,\"minVersion\":\"0.6\",\"target\":\"@env(PREINIT)\",\"package\":\"%s\","
+                + "\"mixins\":[\"%s\"]}", MixinTransformerBenchmark.MIXIN_PACKAGE, MixinTransformerBenchmark.MIXIN);
+        classLoader.addResource(MixinTransformerBenchmark.CONFIG, config.getBytes(Charsets.UTF_8));
+        Mixins.addConfiguration(MixinTransformerBenchmark.CONFIG);
+        
+        this.transformer = (MixinTransformer)MixinEnvironment.getCurrentEnvironment().getActiveTransformer();
+        
+        // Select configs and prepare mixins outside of the measured section
+        this.transform();
+    }
+    
+    @Benchmark
+    public byte[] transform() {
+        return this.transformer.transform(this.targetName, this.targetName, this.targetBytes);
+    }
+    
+}
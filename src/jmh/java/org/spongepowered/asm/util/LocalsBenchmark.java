@@ -0,0 +1,86 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.spongepowered.asm.benchmark.BenchmarkClassLoader;
+import org.spongepowered.asm.benchmark.BenchmarkEnvironment;
+import org.spongepowered.asm.benchmark.SyntheticClasses;
+import org.spongepowered.asm.lib.ClassReader;
+import org.spongepowered.asm.lib.tree.AbstractInsnNode;
+import org.spongepowered.asm.lib.tree.ClassNode;
+import org.spongepowered.asm.lib.tree.LocalVariableNode;
+import org.spongepowered.asm.lib.tree.MethodNode;
+
+/**
+ * Measures {@link Locals#getLocalsAt} at the return instruction of a target
+ * method, which is the position used by <tt>RETURN</tt> and <tt>TAIL</tt>
+ * injectors capturing locals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocalsBenchmark {
+    
+    @Param({"4", "32"})
+    public int extraLocals;
+    
+    private ClassNode classNode;
+    
+    private MethodNode method;
+    
+    private AbstractInsnNode node;
+    
+    @Setup
+    public void setup() {
+        BenchmarkClassLoader classLoader = BenchmarkEnvironment.init();
+        String className = "bench/locals/Target" + this.extraLocals;
+        byte[] bytes = SyntheticClasses.target(className, 1, this.extraLocals);
+        classLoader.addClass(className, bytes);
+        
+        this.classNode = new ClassNode();
+        new ClassReader(bytes).accept(this.classNode, ClassReader.EXPAND_FRAMES);
+        this.method = ASMHelper.findMethod(this.classNode, SyntheticClasses.targetMethod(0), SyntheticClasses.TARGET_METHOD_DESC);
+        this.node = this.method.instructions.getLast();
+        while (this.node.getOpcode() < 0) {
+            this.node = this.node.getPrevious();
+        }
+    }
+    
+    @Benchmark
+    public LocalVariableNode[] getLocalsAt() {
+        return Locals.getLocalsAt(this.classNode, this.method, this.node);
+    }
+    
+}
@@ -56,6 +56,7 @@ import org.spongepowered.asm.obfuscation.RemapperChain;
 import org.spongepowered.asm.util.ITokenProvider;
 import org.spongepowered.asm.util.JavaVersion;
 import org.spongepowered.asm.util.PrettyPrinter;
+import org.spongepowered.asm.util.perf.Profiler;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
@@ -265,6 +266,14 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         DEBUG_EXPORT_FILTER(Option.DEBUG_EXPORT, "filter", false),
         
+        /**
+         * Format used for exported classes. Supported values are "dir"
+         * (default, one file per class in the class output directory) and
+         * "jar" (all classes are written to a single archive). Exported
+         * classes can only be decompiled when they are written to a directory.
+         */
+        DEBUG_EXPORT_FORMAT(Option.DEBUG_EXPORT, "format", "dir"),
+        
         /**
          * Allow fernflower to be disabled even if it is found on the classpath
          */
@@ -290,6 +299,28 @@ public final class MixinEnvironment implements ITokenProvider {
             }
         },
         
+        /**
+         * Number of worker threads used by the threaded decompiler. Each
+         * worker decompiles the classes it takes from the queue in batches
+         * using a single decompiler context.
+         */
+        DEBUG_EXPORT_DECOMPILE_THREADS(Option.DEBUG_EXPORT_DECOMPILE_THREADED, "threads", "1"),
+        
+        /**
+         * Maximum number of exported classes which may be waiting for the
+         * threaded decompiler. What happens when the queue is full is
+         * determined by {@link #DEBUG_EXPORT_DECOMPILE_POLICY}.
+         */
+        DEBUG_EXPORT_DECOMPILE_QUEUE(Option.DEBUG_EXPORT_DECOMPILE_THREADED, "queue", "1024"),
+        
+        /**
+         * Behaviour of the threaded decompiler when its queue is full.
+         * Supported values are "block" (default, the exporting thread waits
+         * for space in the queue), "drop" (the class is not decompiled) and
+         * "caller" (the class is decompiled on the exporting thread).
+         */
+        DEBUG_EXPORT_DECOMPILE_POLICY(Option.DEBUG_EXPORT_DECOMPILE_THREADED, "policy", "block"),
+        
         /**
          * Run the CheckClassAdapter on all classes after mixins are applied,
          * also enables stricter checks on mixins for use at dev-time, promotes
@@ -332,6 +363,13 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         DEBUG_TARGETS(Option.DEBUG_STRICT, "targets"),
         
+        /**
+         * Record timings for each mixin processing phase, per mixin and per
+         * target class. The report is written to the debug output folder when
+         * the environment is audited or when {@link Profiler#dump} is called
+         */
+        DEBUG_PROFILER(Option.DEBUG_ALL, "profiler"),
+        
         /**
          * Disable the injector handler remapper
          */
@@ -374,6 +412,26 @@ public final class MixinEnvironment implements ITokenProvider {
             }
         },
         
+        /**
+         * Measures the bytecode size of each target method before and after
+         * mixins are applied, and warns when a method grows past the JIT
+         * inlining or compilation size limits
+         */
+        CHECK_METHOD_SIZE(Option.CHECK_ALL, "methodSize"),
+        
+        /**
+         * If the method size check is enabled, outlines injected callback
+         * invocations in methods which grew past a size limit into synthetic
+         * helper methods
+         */
+        CHECK_METHOD_SIZE_OUTLINE(Option.CHECK_METHOD_SIZE, "outline") {
+            @Override
+            boolean getBooleanValue() {
+                // no inheritance
+                return this.getLocalBooleanValue();
+            }
+        },
+        
         /**
          * Ignore all constraints on mixin annotations, output warnings instead
          */
@@ -384,6 +442,54 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         HOT_SWAP("hotSwap"),
         
+        /**
+         * Storage used by the hot-swap agent for the original bytecode of
+         * target classes. Supported values are "compressed" (default, deflated
+         * into direct buffers), "mapped" (deflated into a memory-mapped
+         * temporary file) and "heap" (uncompressed on the heap). Any other
+         * value is treated as the name of a class implementing the agent's
+         * bytecode store interface.
+         */
+        HOT_SWAP_STORE(Option.HOT_SWAP, "store", "compressed"),
+        
+        /**
+         * Defer preparation of mixins until one of their targets is loaded.
+         * When enabled, only the {@link Mixin} annotation of each mixin is read
+         * from its raw bytecode when configs are selected, mixins whose targets
+         * are never loaded are never transformed, parsed or validated.
+         */
+        LAZY_PREPARE("lazyPrepare"),
+        
+        /**
+         * Number of worker threads used to fetch mixin bytecode when configs
+         * are prepared, the pool is shared by all configs. Transformation,
+         * parsing, validation and registration of mixins always take place on
+         * the calling thread in declaration order. Values less than 2 disable
+         * the worker pool.
+         */
+        PREPARE_THREADS("prepareThreads", "1"),
+        
+        /**
+         * Rewrite calls to accessor and invoker methods in classes processed
+         * by mixin so that the target field or method is accessed directly,
+         * wherever the target member is accessible from the calling class
+         */
+        INLINE_ACCESSORS("inlineAccessors"),
+        
+        /**
+         * Construct callback info objects for injected callbacks in a small
+         * static factory method generated in the target class instead of
+         * inline at each callback site
+         */
+        CALLBACK_INFO_FACTORY("callbackInfoFactory"),
+        
+        /**
+         * Chain conflicting method redirects in priority order instead of
+         * discarding the lower-priority redirect. The lower-priority handler
+         * wraps the original call inside the higher-priority handler.
+         */
+        CHAIN_REDIRECTS("chainRedirects"),
+        
         /**
          * Parent for environment settings
          */
@@ -733,6 +839,11 @@ public final class MixinEnvironment implements ITokenProvider {
      */
     private static boolean showHeader = true;
     
+    /**
+     * Mixin subsystem profiler 
+     */
+    private static final Profiler profiler = new Profiler();
+    
     /**
      * Logger 
      */
@@ -1119,6 +1230,10 @@ public final class MixinEnvironment implements ITokenProvider {
             MixinTransformer transformer = (MixinTransformer)activeTransformer;
             transformer.audit();
         }
+        
+        if (MixinEnvironment.profiler.isActive()) {
+            MixinEnvironment.profiler.dump();
+        }
     }
 
     /**
@@ -1271,6 +1386,17 @@ public final class MixinEnvironment implements ITokenProvider {
         return MixinEnvironment.currentEnvironment;
     }
 
+    /**
+     * Get the mixin profiler, timings are only recorded when the
+     * {@link Option#DEBUG_PROFILER} option is enabled or the profiler is
+     * activated explicitly
+     * 
+     * @return the profiler
+     */
+    public static Profiler getProfiler() {
+        return MixinEnvironment.profiler;
+    }
+
     /**
      * Get the current compatibility level
      */
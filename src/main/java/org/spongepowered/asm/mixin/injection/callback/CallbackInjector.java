@@ -25,11 +25,15 @@
 package org.spongepowered.asm.mixin.injection.callback;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.spongepowered.asm.lib.Opcodes;
 import org.spongepowered.asm.lib.Type;
 import org.spongepowered.asm.lib.tree.*;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.injection.Coerce;
 import org.spongepowered.asm.mixin.injection.InjectionNodes.InjectionNode;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
@@ -148,6 +152,13 @@ public class CallbackInjector extends Injector {
          * the "simple" descriptor matches. 
          */
         private boolean captureArgs = true;
+        
+        /**
+         * True if the callback info must be checked for cancellation after the
+         * handler returns. Only false when the injector is cancellable if the
+         * handler provably never cancels.
+         */
+        boolean checkCancelled;
 
         Callback(MethodNode handler, Target target, final InjectionNode node, final LocalVariableNode[] locals, boolean captureLocals) {
             this.handler = handler;
@@ -293,6 +304,12 @@ public class CallbackInjector extends Injector {
      */
     private final String identifier;
     
+    /**
+     * Generated callback info factory methods, keyed by identifier and
+     * constructor descriptor
+     */
+    private final Map<String, MethodNode> factories = new HashMap<String, MethodNode>();
+    
     /**
      * Make a new CallbackInjector with the supplied args
      * 
@@ -420,7 +437,8 @@ public class CallbackInjector extends Injector {
         }
         
         this.dupReturnValue(callback);
-        if (this.cancellable) {
+        callback.checkCancelled = this.cancellable && this.canCancel(callback, callbackMethod);
+        if (callback.checkCancelled) {
             this.createCallbackInfo(callback, true);
         }
         this.invokeCallback(callback, callbackMethod);
@@ -504,15 +522,37 @@ public class CallbackInjector extends Injector {
         printer.add("    // Method body").add("}").add().print(System.err);
     }
 
+    /**
+     * Get whether the cancellation check is required for the specified
+     * handler, the check can be skipped if the handler never cancels the
+     * callback or sets its return value
+     * 
+     * @param callback callback handle
+     * @param handler handler being invoked
+     * @return true if the handler can cancel the callback
+     */
+    private boolean canCancel(final Callback callback, final MethodNode handler) {
+        int argIndex = callback.captureArgs() ? callback.target.arguments.length : 0;
+        return CancellationAnalyser.canCancel(this.classNode, handler, argIndex);
+    }
+
     /**
      * @param callback callback handle
      * @param store store the callback info in a local variable
      */
     private void createCallbackInfo(final Callback callback, boolean store) {
-        callback.add(new TypeInsnNode(Opcodes.NEW, callback.target.callbackInfoClass), true, !store);
-        callback.add(new InsnNode(Opcodes.DUP), true, true);
+        if (this.useFactory()) {
+            if (callback.isAtReturn) {
+                callback.add(new VarInsnNode(callback.target.returnType.getOpcode(Opcodes.ILOAD), callback.marshallVar), true, !store);
+            }
+            MethodNode factory = this.getFactory(callback);
+            callback.add(new MethodInsnNode(Opcodes.INVOKESTATIC, this.classNode.name, factory.name, factory.desc, false), true, !store);
+        } else {
+            callback.add(new TypeInsnNode(Opcodes.NEW, callback.target.callbackInfoClass), true, !store);
+            callback.add(new InsnNode(Opcodes.DUP), true, true);
+            this.invokeCallbackInfoCtor(callback, store);
+        }
         
-        this.invokeCallbackInfoCtor(callback, store);
         if (store) {
             callback.add(new VarInsnNode(Opcodes.ASTORE, callback.marshallVar));
         }
@@ -522,7 +562,7 @@ public class CallbackInjector extends Injector {
      * @param callback callback handle
      */
     private void loadOrCreateCallbackInfo(final Callback callback) {
-        if (this.cancellable) {
+        if (callback.checkCancelled) {
             callback.add(new VarInsnNode(Opcodes.ALOAD, callback.marshallVar), false, true);
         } else {
             this.createCallbackInfo(callback, false);
@@ -546,6 +586,61 @@ public class CallbackInjector extends Injector {
         callback.add(new VarInsnNode(callback.target.returnType.getOpcode(Opcodes.ISTORE), callback.marshallVar));
     }
 
+    /**
+     * Get whether callback info objects should be constructed by a generated
+     * factory method. Factories are not generated in interfaces since they
+     * cannot declare private methods.
+     * 
+     * @return true to use a factory method
+     */
+    private boolean useFactory() {
+        return (this.classNode.access & Opcodes.ACC_INTERFACE) == 0
+                && this.info.getContext().getEnvironment().getOption(Option.CALLBACK_INFO_FACTORY);
+    }
+    
+    /**
+     * Get (or generate) the factory method which constructs the callback info
+     * for the specified callback. The factory takes the return value as its
+     * only argument if the callback is at a value RETURN, and is small enough
+     * to be inlined at the call site so that the allocation is visible to
+     * escape analysis when the handler is also inlined.
+     * 
+     * @param callback callback handle
+     * @return factory method
+     */
+    private MethodNode getFactory(final Callback callback) {
+        String identifier = this.getIdentifier(callback);
+        String ctorDesc = callback.isAtReturn ? CallbackInfo.getConstructorDescriptor(callback.target.returnType)
+                : CallbackInfo.getConstructorDescriptor();
+        String key = identifier + ctorDesc;
+        MethodNode factory = this.factories.get(key);
+        if (factory != null) {
+            return factory;
+        }
+        
+        Type[] ctorArgs = Type.getArgumentTypes(ctorDesc);
+        Type returnArg = callback.isAtReturn ? ctorArgs[ctorArgs.length - 1] : null;
+        String desc = String.format("(%s)L%s;", returnArg != null ? returnArg.getDescriptor() : "", callback.target.callbackInfoClass);
+        String name = String.format("%s$info%d", this.methodNode.name, this.factories.size());
+        
+        factory = this.info.addMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC, name, desc);
+        factory.maxLocals = returnArg != null ? returnArg.getSize() : 0;
+        factory.maxStack = 4 + factory.maxLocals;
+        InsnList insns = factory.instructions;
+        insns.add(new TypeInsnNode(Opcodes.NEW, callback.target.callbackInfoClass));
+        insns.add(new InsnNode(Opcodes.DUP));
+        insns.add(new LdcInsnNode(identifier));
+        insns.add(new InsnNode(this.cancellable ? Opcodes.ICONST_1 : Opcodes.ICONST_0));
+        if (returnArg != null) {
+            insns.add(new VarInsnNode(returnArg.getOpcode(Opcodes.ILOAD), 0));
+        }
+        insns.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, callback.target.callbackInfoClass, Constants.CTOR, ctorDesc, false));
+        insns.add(new InsnNode(Opcodes.ARETURN));
+        
+        this.factories.put(key, factory);
+        return factory;
+    }
+
     /**
      * @param callback callback handle
      * @param store true if storing in a local, false if this is happening at an
@@ -582,15 +677,64 @@ public class CallbackInjector extends Injector {
         // Push the callback info onto the stack
         this.loadOrCreateCallbackInfo(callback);
         
-        // (Maybe) push the locals onto the stack
+        // (Maybe) push the locals onto the stack, locals which the handler
+        // never reads are passed as constants instead
         if (callback.canCaptureLocals) {
-            Locals.loadLocals(callback.localTypes, callback, callback.frameSize, callback.extraArgs);
+            Locals.loadLocals(callback.localTypes, callback, callback.frameSize, callback.extraArgs, this.getReadLocals(callback, callbackMethod));
         }
         
         // Call the callback!
         this.invokeHandler(callback, callbackMethod);
     }
 
+    /**
+     * Determine which of the captured locals passed to the specified handler
+     * are actually read by the handler. Returns null (all locals are read) if
+     * the handler can be overridden, since an override may read them.
+     * 
+     * @param callback callback handle
+     * @param handler handler being invoked
+     * @return mask of captured locals read by the handler, or null
+     */
+    private boolean[] getReadLocals(final Callback callback, final MethodNode handler) {
+        boolean overridable = (handler.access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL)) == 0;
+        if (overridable && (this.classNode.access & Opcodes.ACC_FINAL) == 0) {
+            return null;
+        }
+        
+        Type[] args = Type.getArgumentTypes(handler.desc);
+        int firstLocal = callback.target.arguments.length + 1;
+        if (args.length <= firstLocal || handler.instructions == null) {
+            return null;
+        }
+        
+        int slot = ASMHelper.methodIsStatic(handler) ? 0 : 1;
+        for (int arg = 0; arg < firstLocal; arg++) {
+            slot += args[arg].getSize();
+        }
+        
+        boolean[] readSlots = new boolean[ASMHelper.getFirstNonArgLocalIndex(handler)];
+        for (Iterator<AbstractInsnNode> iter = handler.instructions.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            int var = -1;
+            if (insn instanceof VarInsnNode && (insn.getOpcode() < Opcodes.ISTORE || insn.getOpcode() > Opcodes.ASTORE)) {
+                var = ((VarInsnNode)insn).var;
+            } else if (insn instanceof IincInsnNode) {
+                var = ((IincInsnNode)insn).var;
+            }
+            if (var > -1 && var < readSlots.length) {
+                readSlots[var] = true;
+            }
+        }
+        
+        boolean[] read = new boolean[args.length - firstLocal];
+        for (int local = 0; local < read.length; local++) {
+            read[local] = readSlots[slot];
+            slot += args[firstLocal + local].getSize();
+        }
+        return read;
+    }
+
     /**
      * Get the identifier to use for the specified callback. If an id was
      * specified by the end user on the annotation then use the value specified,
@@ -609,7 +753,7 @@ public class CallbackInjector extends Injector {
      * @param callback callback handle
      */
     protected void injectCancellationCode(final Callback callback) {
-        if (!this.cancellable) {
+        if (!callback.checkCancelled) {
             return;
         }
         
@@ -0,0 +1,187 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.injection.callback;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.spongepowered.asm.lib.Opcodes;
+import org.spongepowered.asm.lib.Type;
+import org.spongepowered.asm.lib.tree.AbstractInsnNode;
+import org.spongepowered.asm.lib.tree.ClassNode;
+import org.spongepowered.asm.lib.tree.IincInsnNode;
+import org.spongepowered.asm.lib.tree.MethodInsnNode;
+import org.spongepowered.asm.lib.tree.MethodNode;
+import org.spongepowered.asm.lib.tree.VarInsnNode;
+
+/**
+ * Conservative analysis of the way a callback handler uses the
+ * {@link CallbackInfo} passed to it. A handler is considered unable to cancel
+ * the callback if every use of the argument is an immediate call to one of the
+ * read-only accessors of {@link CallbackInfo} or {@link CallbackInfoReturnable}
+ * and the handler cannot be overridden. Anything else, including passing the
+ * info to another method or storing it, is assumed to cancel.
+ * 
+ * <p>Handlers which pass the stricter {@link #canDowngrade} check do not
+ * observe the cancellable flag at all, and can be injected as non-cancellable
+ * without any change in behaviour.</p>
+ */
+public final class CancellationAnalyser {
+    
+    private static final String CALLBACK_INFO = CallbackInfo.getCallInfoClassName(Type.VOID_TYPE);
+    
+    private static final String CALLBACK_INFO_RETURNABLE = CallbackInfo.getCallInfoClassName(Type.INT_TYPE);
+
+    /**
+     * Accessors which cannot change the state of the callback info and do not
+     * depend on whether it is cancellable
+     */
+    private static final Set<String> INDEPENDENT = new HashSet<String>();
+    
+    /**
+     * Accessors which cannot change the state of the callback info
+     */
+    private static final Set<String> READ_ONLY = new HashSet<String>();
+    
+    static {
+        CancellationAnalyser.INDEPENDENT.add("getId()Ljava/lang/String;");
+        CancellationAnalyser.INDEPENDENT.add("isCancelled()Z");
+        CancellationAnalyser.INDEPENDENT.add("getReturnValue()Ljava/lang/Object;");
+        for (char sort : "BCDFIJSZ".toCharArray()) {
+            CancellationAnalyser.INDEPENDENT.add("getReturnValue" + sort + "()" + sort);
+        }
+        CancellationAnalyser.READ_ONLY.addAll(CancellationAnalyser.INDEPENDENT);
+        CancellationAnalyser.READ_ONLY.add("toString()Ljava/lang/String;");
+        CancellationAnalyser.READ_ONLY.add("isCancellable()Z");
+    }
+    
+    private CancellationAnalyser() {
+    }
+
+    /**
+     * Get whether the specified handler can cancel (or set the return value
+     * of) the callback info passed to it
+     * 
+     * @param owner class which owns the handler
+     * @param handler handler method
+     * @param argIndex index of the callback info in the handler's arguments
+     * @return false if the handler provably never cancels, true otherwise
+     */
+    public static boolean canCancel(ClassNode owner, MethodNode handler, int argIndex) {
+        if (!CancellationAnalyser.isFinal(handler) && (owner.access & Opcodes.ACC_FINAL) == 0) {
+            return true;
+        }
+        
+        return !CancellationAnalyser.usesOnly(handler, argIndex, CancellationAnalyser.READ_ONLY);
+    }
+    
+    /**
+     * Get whether a cancellable injector with the specified handler can be
+     * injected as non-cancellable. This is the case if the handler cannot be
+     * overridden, declares exactly one callback info argument, and only ever
+     * reads the state of the callback info without checking whether it is
+     * cancellable.
+     * 
+     * @param handler handler method
+     * @return true if the injector can be downgraded to non-cancellable
+     */
+    public static boolean canDowngrade(MethodNode handler) {
+        if (!CancellationAnalyser.isFinal(handler)) {
+            return false;
+        }
+        
+        int argIndex = -1;
+        Type[] args = Type.getArgumentTypes(handler.desc);
+        for (int arg = 0; arg < args.length; arg++) {
+            String internalName = args[arg].getSort() == Type.OBJECT ? args[arg].getInternalName() : null;
+            if (CancellationAnalyser.CALLBACK_INFO.equals(internalName) || CancellationAnalyser.CALLBACK_INFO_RETURNABLE.equals(internalName)) {
+                if (argIndex > -1) {
+                    return false;
+                }
+                argIndex = arg;
+            }
+        }
+        
+        return argIndex > -1 && CancellationAnalyser.usesOnly(handler, argIndex, CancellationAnalyser.INDEPENDENT);
+    }
+    
+    private static boolean usesOnly(MethodNode handler, int argIndex, Set<String> accessors) {
+        if (handler.instructions == null || handler.instructions.size() == 0) {
+            return false;
+        }
+        
+        Type[] args = Type.getArgumentTypes(handler.desc);
+        if (argIndex < 0 || argIndex >= args.length || args[argIndex].getSort() != Type.OBJECT) {
+            return false;
+        }
+        
+        int slot = (handler.access & Opcodes.ACC_STATIC) != 0 ? 0 : 1;
+        for (int arg = 0; arg < argIndex; arg++) {
+            slot += args[arg].getSize();
+        }
+        
+        for (AbstractInsnNode insn = handler.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn instanceof VarInsnNode) {
+                int opcode = insn.getOpcode();
+                int var = ((VarInsnNode)insn).var;
+                if (opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE) {
+                    boolean wide = opcode == Opcodes.LSTORE || opcode == Opcodes.DSTORE;
+                    if (var == slot || (wide && var == slot - 1)) {
+                        return false;
+                    }
+                } else if (opcode == Opcodes.ALOAD && var == slot && !CancellationAnalyser.isCall(CancellationAnalyser.nextInsn(insn), accessors)) {
+                    return false;
+                }
+            } else if (insn instanceof IincInsnNode && ((IincInsnNode)insn).var == slot) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    private static boolean isFinal(MethodNode handler) {
+        return (handler.access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL)) != 0;
+    }
+    
+    private static boolean isCall(AbstractInsnNode insn, Set<String> accessors) {
+        if (insn == null || insn.getOpcode() != Opcodes.INVOKEVIRTUAL) {
+            return false;
+        }
+        
+        MethodInsnNode methodInsn = (MethodInsnNode)insn;
+        return (CancellationAnalyser.CALLBACK_INFO.equals(methodInsn.owner) || CancellationAnalyser.CALLBACK_INFO_RETURNABLE.equals(methodInsn.owner))
+                && accessors.contains(methodInsn.name + methodInsn.desc);
+    }
+    
+    private static AbstractInsnNode nextInsn(AbstractInsnNode insn) {
+        AbstractInsnNode next = insn.getNext();
+        while (next != null && next.getOpcode() < 0) {
+            next = next.getNext();
+        }
+        return next;
+    }
+
+}
@@ -24,12 +24,17 @@
  */
 package org.spongepowered.asm.mixin.injection.invoke;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
+import org.spongepowered.asm.lib.Opcodes;
 import org.spongepowered.asm.lib.Type;
+import org.spongepowered.asm.lib.tree.AbstractInsnNode;
 import org.spongepowered.asm.lib.tree.InsnList;
 import org.spongepowered.asm.lib.tree.MethodInsnNode;
+import org.spongepowered.asm.lib.tree.VarInsnNode;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.InjectionNodes.InjectionNode;
 import org.spongepowered.asm.mixin.injection.code.Injector;
@@ -39,9 +44,17 @@ import org.spongepowered.asm.mixin.injection.throwables.InvalidInjectionExceptio
 
 /**
  * A bytecode injector which allows a single argument of a chosen method call to
- * be altered.
+ * be altered. Where several injectors modify the arguments of the same call,
+ * the first injector to be applied spills the arguments once and invokes all
+ * of the handlers in order, rather than each injector spilling and reloading
+ * the arguments in turn.
  */
 public class ModifyArgInjector extends InvokeInjector {
+    
+    /**
+     * Decoration key for the list of injectors targetting a node 
+     */
+    private static final String KEY_INJECTORS = "modifyArg";
 
     /**
      * Index of the target arg or -1 to find the arg automatically (only works
@@ -94,11 +107,39 @@ public class ModifyArgInjector extends InvokeInjector {
         }
     }
     
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.injection.code.Injector
+     *      #addTargetNode(org.spongepowered.asm.mixin.injection.struct.Target,
+     *      java.util.List, org.spongepowered.asm.lib.tree.AbstractInsnNode,
+     *      java.util.Set)
+     */
+    @Override
+    protected void addTargetNode(Target target, List<InjectionNode> myNodes, AbstractInsnNode insn, Set<InjectionPoint> nominators) {
+        InjectionNode node = target.injectionNodes.add(insn);
+        List<ModifyArgInjector> injectors = node.<List<ModifyArgInjector>>getDecoration(ModifyArgInjector.KEY_INJECTORS);
+        if (injectors == null) {
+            injectors = new ArrayList<ModifyArgInjector>();
+            node.decorate(ModifyArgInjector.KEY_INJECTORS, injectors);
+        }
+        if (!injectors.contains(this)) {
+            injectors.add(this);
+        }
+        myNodes.add(node);
+    }
+    
     /**
      * Do the injection
      */
     @Override
     protected void injectAtInvoke(Target target, InjectionNode node) {
+        List<ModifyArgInjector> injectors = node.<List<ModifyArgInjector>>getDecoration(ModifyArgInjector.KEY_INJECTORS);
+        if (injectors != null && injectors.size() > 1) {
+            if (injectors.get(0) == this) {
+                this.injectFused(target, node, injectors);
+            }
+            return;
+        }
+        
         MethodInsnNode methodNode = (MethodInsnNode)node.getCurrentTarget();
         Type[] args = Type.getArgumentTypes(methodNode.desc);
         int argIndex = this.findArgIndex(target, args);
@@ -116,6 +157,46 @@ public class ModifyArgInjector extends InvokeInjector {
         target.addToStack(2 - (extraLocals - 1));
     }
 
+    /**
+     * Inject the handlers of all of the supplied injectors at the target node
+     * using a single argument spill. Each handler writes its result back to
+     * the spilled argument so that subsequent handlers observe the modified
+     * value, as they would if the injectors were applied separately.
+     */
+    private void injectFused(Target target, InjectionNode node, List<ModifyArgInjector> injectors) {
+        MethodInsnNode methodNode = (MethodInsnNode)node.getCurrentTarget();
+        Type[] args = Type.getArgumentTypes(methodNode.desc);
+        int[] argIndices = new int[injectors.size()];
+        for (int i = 0; i < argIndices.length; i++) {
+            argIndices[i] = injectors.get(i).findArgIndex(target, args);
+        }
+        
+        InsnList insns = new InsnList();
+        int[] argMap = this.storeArgs(target, args, insns, 0);
+        for (int i = 0; i < argIndices.length; i++) {
+            injectors.get(i).injectFusedHandler(args, argIndices[i], argMap, insns);
+        }
+        this.pushArgs(args, insns, argMap, 0, args.length);
+        
+        target.insns.insertBefore(methodNode, insns);
+        target.addToLocals((argMap[argMap.length - 1] - target.getMaxLocals()) + args[args.length - 1].getSize());
+        target.addToStack(1);
+    }
+
+    /**
+     * Inject handler opcodes for this injector as part of a fused injection,
+     * the arguments have already been spilled to the locals in argMap
+     */
+    private void injectFusedHandler(Type[] args, int argIndex, int[] argMap, InsnList insns) {
+        if (this.singleArgMode) {
+            this.invokeHandlerWithArgs(args, insns, argMap, argIndex, argIndex + 1);
+        } else {
+            this.checkArgs(args);
+            this.invokeHandlerWithArgs(args, insns, argMap, 0, args.length);
+        }
+        insns.add(new VarInsnNode(args[argIndex].getOpcode(Opcodes.ISTORE), argMap[argIndex]));
+    }
+
     /**
      * Inject handler opcodes for a single arg handler
      */
@@ -130,10 +211,7 @@ public class ModifyArgInjector extends InvokeInjector {
      * Inject handler opcodes for a multi arg handler
      */
     private int injectMultiArgHandler(Target target, Type[] args, int argIndex, InsnList insns) {
-        if (!Arrays.equals(args, this.methodArgs)) {
-            throw new InvalidInjectionException(this.info, "@ModifyArg method " + this + " targets a method with an invalid signature "
-                    + Injector.printArgs(args) + ", expected " + Injector.printArgs(this.methodArgs));
-        }
+        this.checkArgs(args);
 
         int[] argMap = this.storeArgs(target, args, insns, 0);
         this.pushArgs(args, insns, argMap, 0, argIndex);
@@ -142,6 +220,13 @@ public class ModifyArgInjector extends InvokeInjector {
         return (argMap[argMap.length - 1] - target.getMaxLocals()) + args[args.length - 1].getSize();
     }
 
+    private void checkArgs(Type[] args) {
+        if (!Arrays.equals(args, this.methodArgs)) {
+            throw new InvalidInjectionException(this.info, "@ModifyArg method " + this + " targets a method with an invalid signature "
+                    + Injector.printArgs(args) + ", expected " + Injector.printArgs(this.methodArgs));
+        }
+    }
+
     protected int findArgIndex(Target target, Type[] args) {
         if (this.index > -1) {
             if (this.index >= args.length || !args[this.index].equals(this.returnType)) {
@@ -24,6 +24,7 @@
  */
 package org.spongepowered.asm.mixin.injection.invoke;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -39,9 +40,12 @@ import org.spongepowered.asm.lib.tree.InsnNode;
 import org.spongepowered.asm.lib.tree.JumpInsnNode;
 import org.spongepowered.asm.lib.tree.LabelNode;
 import org.spongepowered.asm.lib.tree.MethodInsnNode;
+import org.spongepowered.asm.lib.tree.MethodNode;
+import org.spongepowered.asm.lib.tree.TryCatchBlockNode;
 import org.spongepowered.asm.lib.tree.TypeInsnNode;
 import org.spongepowered.asm.lib.tree.VarInsnNode;
 import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.injection.InjectionNodes.InjectionNode;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.Redirect;
@@ -90,6 +94,15 @@ import com.google.common.primitives.Ints;
  * <p>For constructor redirections, the signature of the handler method should
  * match the constructor itself, return type should be of the type of object
  * being created.</p>
+ * 
+ * <p>When {@link Option#CHAIN_REDIRECTS} is enabled, a method redirect which
+ * loses a conflict is not discarded if its handler has the plain signature
+ * described above. It is instead chained into the handler which won at that
+ * node: the node invokes a private copy of the winning handler in which calls
+ * to the original method are redirected to a copy of the losing handler, so
+ * that the handlers wrap each other in priority order. The copies are made
+ * for each conflicting node, so the handlers themselves and any other nodes
+ * they redirect are not affected by the chain.</p>
  */
 public class RedirectInjector extends InvokeInjector {
     
@@ -124,6 +137,38 @@ public class RedirectInjector extends InvokeInjector {
         
     }
     
+    /**
+     * Meta decoration for a node at which conflicting method redirects are
+     * chained
+     */
+    static class Chain {
+        
+        public static final String KEY = "chain";
+        
+        /**
+         * Chained redirects in descending priority order, the redirect which
+         * won the conflict is always first
+         */
+        final List<Meta> redirects = new ArrayList<Meta>();
+        
+        /**
+         * Copy of the handler of each chained redirect, each copy invokes the
+         * copy below it in place of the original method. The node invokes the
+         * first copy.
+         */
+        final List<MethodNode> bridges = new ArrayList<MethodNode>();
+        
+        /**
+         * Retarget an invocation of the winning handler to its copy
+         */
+        void enter(MethodInsnNode call) {
+            MethodNode bridge = this.bridges.get(0);
+            call.name = bridge.name;
+            call.setOpcode((bridge.access & Opcodes.ACC_STATIC) != 0 ? Opcodes.INVOKESTATIC : Opcodes.INVOKESPECIAL);
+        }
+        
+    }
+    
     /**
      * Meta decoration for wildcard ctor redirects
      */
@@ -139,6 +184,16 @@ public class RedirectInjector extends InvokeInjector {
 
     private Map<BeforeNew, ConstructorRedirectData> ctorRedirectors = new HashMap<BeforeNew, ConstructorRedirectData>();
     
+    /**
+     * True if conflicting method redirects should be chained
+     */
+    private final boolean chainRedirects;
+    
+    /**
+     * Number of chain bridges created by this injector, used to name them
+     */
+    private int bridges;
+    
     /**
      * @param info Injection info
      */
@@ -152,6 +207,7 @@ public class RedirectInjector extends InvokeInjector {
         int priority = info.getContext().getPriority();
         boolean isFinal = ASMHelper.getVisibleAnnotation(this.methodNode, Final.class) != null;
         this.meta = new Meta(priority, isFinal, this.info.toString(), this.methodNode.desc);
+        this.chainRedirects = info.getContext().getEnvironment().getOption(Option.CHAIN_REDIRECTS);
     }
     
     /* (non-Javadoc)
@@ -173,6 +229,10 @@ public class RedirectInjector extends InvokeInjector {
             
             if (other != null && other.getOwner() != this) {
                 if (other.priority >= this.meta.priority) {
+                    if (this.chainRedirects && insn instanceof MethodInsnNode) {
+                        myNodes.add(node); // Will attempt to chain into the winning redirect
+                        return;
+                    }
                     Injector.logger.warn("{} conflict. Skipping {} with priority {}, already redirected by {} with priority {}",
                             this.annotationType, this.info, this.meta.priority, other.name, other.priority);
                     return;
@@ -245,6 +305,9 @@ public class RedirectInjector extends InvokeInjector {
     protected boolean preInject(InjectionNode node) {
         Meta other = node.getDecoration(Meta.KEY);
         if (other.getOwner() != this) {
+            if (this.chain(node, other)) {
+                return false;
+            }
             Injector.logger.warn("{} conflict. Skipping {} with priority {}, already redirected by {} with priority {}",
                     this.annotationType, this.info, this.meta.priority, other.name, other.priority);
             return false;
@@ -252,6 +315,148 @@ public class RedirectInjector extends InvokeInjector {
         return true;
     }
     
+    /**
+     * Attempt to chain this redirect into the redirect which won the conflict
+     * for the specified node. The chain is kept in descending priority order,
+     * this redirect is inserted below the redirects with equal or higher
+     * priority. A private copy of this handler is created for the node, the
+     * copy above it invokes this copy in place of the original method (or of
+     * the copy which was previously below it), and this copy invokes the copy
+     * below it in place of the original method.
+     * 
+     * @param node conflicting node
+     * @param winner meta of the redirect which won the conflict
+     * @return true if the redirect was chained
+     */
+    protected boolean chain(InjectionNode node, Meta winner) {
+        if (!this.chainRedirects || winner.isFinal || !(node.getOriginalTarget() instanceof MethodInsnNode)
+                || winner.getOwner().isStatic != this.isStatic) {
+            return false;
+        }
+        
+        MethodInsnNode original = (MethodInsnNode)node.getOriginalTarget();
+        Type ownerType = Type.getType("L" + original.owner + ";");
+        Type[] args = Type.getArgumentTypes(original.desc);
+        Type[] stackVars = original.getOpcode() == Opcodes.INVOKESTATIC ? args : ObjectArrays.concat(ownerType, args);
+        if (!this.methodNode.desc.equals(Injector.printArgs(stackVars) + Type.getReturnType(original.desc))) {
+            return false;
+        }
+        
+        Chain chain = node.<Chain>getDecoration(Chain.KEY);
+        int pos = 1;
+        if (chain != null) {
+            while (pos < chain.redirects.size() && chain.redirects.get(pos).priority >= this.meta.priority) {
+                pos++;
+            }
+        }
+        
+        RedirectInjector outer = chain != null ? chain.redirects.get(pos - 1).getOwner() : winner.getOwner();
+        if (RedirectInjector.findCalls(outer.methodNode, original.owner, original.name, original.desc).isEmpty()) {
+            return false;
+        }
+        
+        if (chain == null) {
+            chain = new Chain();
+            chain.redirects.add(winner);
+            chain.bridges.add(this.createBridge(winner.getOwner().methodNode));
+            node.decorate(Chain.KEY, chain);
+            if (node.getCurrentTarget() != original && node.getCurrentTarget() instanceof MethodInsnNode) {
+                // The winning redirect was already injected
+                chain.enter((MethodInsnNode)node.getCurrentTarget());
+            }
+        }
+        
+        MethodNode bridge = this.createBridge(this.methodNode);
+        MethodNode above = chain.bridges.get(pos - 1);
+        if (pos < chain.bridges.size()) {
+            MethodNode below = chain.bridges.get(pos);
+            for (MethodInsnNode call : RedirectInjector.findCalls(above, this.classNode.name, below.name, below.desc)) {
+                call.name = bridge.name;
+            }
+            this.invokeBridge(bridge, original, stackVars, below);
+        } else {
+            this.invokeBridge(above, original, stackVars, bridge);
+        }
+        
+        chain.redirects.add(pos, this.meta);
+        chain.bridges.add(pos, bridge);
+        this.info.addCallbackInvocation(this.methodNode);
+        Injector.logger.debug("{} conflict. Chained {} with priority {} inside {} with priority {}", this.annotationType, this.info,
+                this.meta.priority, outer.meta.name, outer.meta.priority);
+        return true;
+    }
+    
+    /**
+     * Create a private copy of the specified handler for use in a chain
+     * 
+     * @param handler handler to copy
+     * @return new bridge method
+     */
+    private MethodNode createBridge(MethodNode handler) {
+        String name = String.format("%s$chain%d", this.methodNode.name, this.bridges++);
+        MethodNode bridge = this.info.addMethod(Opcodes.ACC_PRIVATE | (handler.access & Opcodes.ACC_STATIC), name, handler.desc);
+        Map<LabelNode, LabelNode> labels = ASMHelper.cloneLabels(handler.instructions);
+        for (Iterator<AbstractInsnNode> iter = handler.instructions.iterator(); iter.hasNext();) {
+            bridge.instructions.add(iter.next().clone(labels));
+        }
+        for (TryCatchBlockNode tryCatchBlock : handler.tryCatchBlocks) {
+            bridge.tryCatchBlocks.add(new TryCatchBlockNode(labels.get(tryCatchBlock.start), labels.get(tryCatchBlock.end),
+                    labels.get(tryCatchBlock.handler), tryCatchBlock.type));
+        }
+        bridge.maxLocals = handler.maxLocals;
+        bridge.maxStack = handler.maxStack;
+        return bridge;
+    }
+    
+    /**
+     * Replace invocations of the original method in the specified bridge with
+     * invocations of the next bridge in the chain
+     * 
+     * @param bridge bridge to modify
+     * @param original original method invocation
+     * @param stackVars types on the stack when the original is invoked
+     * @param next bridge to invoke
+     */
+    private void invokeBridge(MethodNode bridge, MethodInsnNode original, Type[] stackVars, MethodNode next) {
+        int argsSize = ASMHelper.getArgsSize(stackVars);
+        for (MethodInsnNode call : RedirectInjector.findCalls(bridge, original.owner, original.name, original.desc)) {
+            InsnList insns = new InsnList();
+            if (this.isStatic) {
+                insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, this.classNode.name, next.name, next.desc, false));
+            } else {
+                // Spill the stack so that the handler instance can be loaded beneath it
+                int local = bridge.maxLocals + argsSize;
+                for (int arg = stackVars.length - 1; arg >= 0; arg--) {
+                    local -= stackVars[arg].getSize();
+                    insns.add(new VarInsnNode(stackVars[arg].getOpcode(Opcodes.ISTORE), local));
+                }
+                insns.add(new VarInsnNode(Opcodes.ALOAD, 0));
+                ASMHelper.loadArgs(stackVars, insns, bridge.maxLocals);
+                insns.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, this.classNode.name, next.name, next.desc, false));
+            }
+            bridge.instructions.insertBefore(call, insns);
+            bridge.instructions.remove(call);
+        }
+        if (!this.isStatic) {
+            bridge.maxLocals += argsSize;
+            bridge.maxStack++;
+        }
+    }
+    
+    private static List<MethodInsnNode> findCalls(MethodNode method, String owner, String name, String desc) {
+        List<MethodInsnNode> calls = new ArrayList<MethodInsnNode>();
+        for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            if (insn instanceof MethodInsnNode) {
+                MethodInsnNode methodInsn = (MethodInsnNode)insn;
+                if (methodInsn.owner.equals(owner) && methodInsn.name.equals(name) && methodInsn.desc.equals(desc)) {
+                    calls.add(methodInsn);
+                }
+            }
+        }
+        return calls;
+    }
+    
     @Override
     protected void postInject(Target target, InjectionNode node) {
         super.postInject(target, node);
@@ -299,6 +504,10 @@ public class RedirectInjector extends InvokeInjector {
             argMap = Ints.concat(argMap, target.argIndices);
         }
         AbstractInsnNode insn = this.invokeHandlerWithArgs(this.methodArgs, insns, argMap);
+        Chain chain = node.<Chain>getDecoration(Chain.KEY);
+        if (chain != null && chain.redirects.get(0).getOwner() == this) {
+            chain.enter((MethodInsnNode)insn);
+        }
         target.replaceNode(methodNode, insn, insns);
         target.addToLocals(extraLocals);
         target.addToStack(extraStack);
@@ -317,19 +317,29 @@ public abstract class InjectionInfo extends SpecialMethodInfo {
      */
     private void findMethods(MemberInfo searchFor, String type) {
         this.targets.clear();
-        int ordinal = 0;
         
-        for (MethodNode target : this.classNode.methods) {
-            if (searchFor.matches(target.name, target.desc, ordinal)) {
-                boolean isMixinMethod = ASMHelper.getVisibleAnnotation(target, MixinMerged.class) != null;
-                if (searchFor.matchAll && (ASMHelper.methodIsStatic(target) != this.isStatic || target == this.method || isMixinMethod)) {
-                    continue;
-                }
-                
+        if (!searchFor.matchAll && searchFor.name != null && searchFor.desc != null) {
+            // A fully-qualified reference can only match a single method
+            MethodNode target = this.mixin.findTargetMethod(searchFor.name, searchFor.desc);
+            if (target != null) {
                 this.checkTarget(target);
-                
                 this.targets.add(target);
-                ordinal++;
+            }
+        } else {
+            int ordinal = 0;
+            
+            for (MethodNode target : this.classNode.methods) {
+                if (searchFor.matches(target.name, target.desc, ordinal)) {
+                    boolean isMixinMethod = ASMHelper.getVisibleAnnotation(target, MixinMerged.class) != null;
+                    if (searchFor.matchAll && (ASMHelper.methodIsStatic(target) != this.isStatic || target == this.method || isMixinMethod)) {
+                        continue;
+                    }
+                    
+                    this.checkTarget(target);
+                    
+                    this.targets.add(target);
+                    ordinal++;
+                }
             }
         }
         
@@ -29,16 +29,21 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 
 import net.minecraft.launchwrapper.Launch;
 
@@ -214,7 +219,57 @@ public final class ReferenceMapper implements Serializable {
      * @param writer Writer to write to
      */
     public void write(Appendable writer) {
-        new GsonBuilder().setPrettyPrinting().create().toJson(this, writer);
+        this.write(writer, false);
+    }
+    
+    /**
+     * Write this refmap out to the specified writer. The refmap is streamed to
+     * the writer with all keys sorted so that the output is reproducible.
+     * 
+     * @param writer Writer to write to
+     * @param compact true to omit indentation and line breaks
+     */
+    public void write(Appendable writer, boolean compact) {
+        Writer out = writer instanceof Writer ? (Writer)writer : new StringWriter();
+        JsonWriter json = new JsonWriter(out);
+        json.setIndent(compact ? "" : "  ");
+        json.setHtmlSafe(true);
+        try {
+            json.beginObject();
+            json.name("mappings");
+            ReferenceMapper.writeMappings(json, this.mappings);
+            json.name("data");
+            json.beginObject();
+            for (Entry<String, Map<String, Map<String, String>>> context : ReferenceMapper.sorted(this.data)) {
+                json.name(context.getKey());
+                ReferenceMapper.writeMappings(json, context.getValue());
+            }
+            json.endObject();
+            json.endObject();
+            json.flush();
+            if (out != writer) {
+                writer.append(out.toString());
+            }
+        } catch (IOException ex) {
+            throw new JsonIOException(ex);
+        }
+    }
+    
+    private static void writeMappings(JsonWriter json, Map<String, Map<String, String>> mappings) throws IOException {
+        json.beginObject();
+        for (Entry<String, Map<String, String>> owner : ReferenceMapper.sorted(mappings)) {
+            json.name(owner.getKey());
+            json.beginObject();
+            for (Entry<String, String> mapping : ReferenceMapper.sorted(owner.getValue())) {
+                json.name(mapping.getKey()).value(mapping.getValue());
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+    
+    private static <V> Iterable<Entry<String, V>> sorted(Map<String, V> map) {
+        return new TreeMap<String, V>(map).entrySet();
     }
     
     /**
@@ -0,0 +1,191 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.spongepowered.asm.lib.tree.AbstractInsnNode;
+import org.spongepowered.asm.lib.tree.LabelNode;
+import org.spongepowered.asm.lib.tree.MethodNode;
+import org.spongepowered.asm.util.Constants;
+
+/**
+ * Instance initialiser extracted from a mixin constructor. The initialiser of
+ * a mixin is the same for every target, so the extraction is performed once
+ * and the template records the positions and opcodes of the initialiser insns
+ * within the constructor. The insns are then picked out of each target's
+ * (re-parented) copy of the constructor without scanning it again.
+ */
+final class InitialiserTemplate {
+    
+    /**
+     * Mixin bytecode the template was extracted from 
+     */
+    private final byte[] revision;
+    
+    /**
+     * Descriptor of the constructor the initialiser was extracted from, null
+     * if the mixin has no initialiser
+     */
+    private final String ctorDesc;
+    
+    /**
+     * Size of the constructor insn list at extraction time
+     */
+    private final int size;
+    
+    /**
+     * Positions of initialiser insns in the constructor 
+     */
+    private final int[] indices;
+    
+    /**
+     * Expected opcodes at each position, validated when the template is used
+     */
+    private final int[] opcodes;
+
+    private InitialiserTemplate(byte[] revision, String ctorDesc, int size, int[] indices, int[] opcodes) {
+        this.revision = revision;
+        this.ctorDesc = ctorDesc;
+        this.size = size;
+        this.indices = indices;
+        this.opcodes = opcodes;
+    }
+    
+    /**
+     * Get whether this template was created from the supplied bytecode
+     * 
+     * @param mixinBytes current mixin bytecode
+     * @return true if the template is still valid
+     */
+    boolean isValidFor(byte[] mixinBytes) {
+        return this.revision == mixinBytes;
+    }
+    
+    /**
+     * Get whether the mixin has no initialiser
+     */
+    boolean isEmpty() {
+        return this.ctorDesc == null;
+    }
+    
+    /**
+     * Find the constructor the initialiser was extracted from in the supplied
+     * mixin context
+     * 
+     * @param mixin mixin context
+     * @return matching constructor, or null if not found
+     */
+    MethodNode findConstructor(MixinTargetContext mixin) {
+        for (MethodNode method : mixin.getMethods()) {
+            if (Constants.CTOR.equals(method.name) && method.desc.equals(this.ctorDesc)) {
+                return method;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Pick the initialiser insns out of the supplied constructor
+     * 
+     * @param ctor mixin constructor (after re-parenting)
+     * @return initialiser insns or null if the constructor does not match
+     *      the template
+     */
+    Deque<AbstractInsnNode> extract(MethodNode ctor) {
+        if (ctor.instructions.size() != this.size) {
+            return null;
+        }
+        
+        AbstractInsnNode[] insns = ctor.instructions.toArray();
+        Deque<AbstractInsnNode> initialiser = new ArrayDeque<AbstractInsnNode>(this.indices.length);
+        for (int i = 0; i < this.indices.length; i++) {
+            AbstractInsnNode insn = insns[this.indices[i]];
+            if (insn.getOpcode() != this.opcodes[i]) {
+                return null;
+            }
+            initialiser.add(insn);
+        }
+        return initialiser;
+    }
+    
+    /**
+     * Create a template for a mixin which has no initialiser
+     * 
+     * @param mixinBytes mixin bytecode
+     * @return empty template
+     */
+    static InitialiserTemplate empty(byte[] mixinBytes) {
+        return new InitialiserTemplate(mixinBytes, null, 0, new int[0], new int[0]);
+    }
+    
+    /**
+     * Create a template from an initialiser extracted from a constructor.
+     * Labels are not recorded since they are never injected.
+     * 
+     * @param mixinBytes mixin bytecode
+     * @param ctor constructor the initialiser was extracted from
+     * @param original constructor insns before extraction, positions are
+     *      relative to this array
+     * @param initialiser extracted initialiser
+     * @return new template, or null if the initialiser contains insns which
+     *      are not present in the original constructor
+     */
+    static InitialiserTemplate create(byte[] mixinBytes, MethodNode ctor, AbstractInsnNode[] original, Deque<AbstractInsnNode> initialiser) {
+        if (initialiser.isEmpty()) {
+            return InitialiserTemplate.empty(mixinBytes);
+        }
+        
+        Map<AbstractInsnNode, Integer> positions = new IdentityHashMap<AbstractInsnNode, Integer>(original.length * 2);
+        for (int index = 0; index < original.length; index++) {
+            positions.put(original[index], Integer.valueOf(index));
+        }
+        
+        int count = 0;
+        int[] indices = new int[initialiser.size()];
+        int[] opcodes = new int[initialiser.size()];
+        for (AbstractInsnNode insn : initialiser) {
+            if (insn instanceof LabelNode) {
+                continue;
+            }
+            Integer index = positions.get(insn);
+            if (index == null) {
+                return null;
+            }
+            indices[count] = index.intValue();
+            opcodes[count++] = insn.getOpcode();
+        }
+        
+        int[] finalIndices = new int[count];
+        int[] finalOpcodes = new int[count];
+        System.arraycopy(indices, 0, finalIndices, 0, count);
+        System.arraycopy(opcodes, 0, finalOpcodes, 0, count);
+        return new InitialiserTemplate(mixinBytes, ctor.desc, original.length, finalIndices, finalOpcodes);
+    }
+    
+}
@@ -27,8 +27,10 @@ package org.spongepowered.asm.mixin.transformer;
 import java.lang.annotation.Annotation;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +62,8 @@ import org.spongepowered.asm.util.ASMHelper;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.ConstraintParser;
 import org.spongepowered.asm.util.ConstraintParser.Constraint;
+import org.spongepowered.asm.util.perf.Profiler;
+import org.spongepowered.asm.util.perf.Profiler.Section;
 import org.spongepowered.asm.util.throwables.ConstraintViolationException;
 import org.spongepowered.asm.util.throwables.InvalidConstraintException;
 
@@ -119,6 +123,29 @@ class MixinApplicatorStandard {
         SAFE
     }
     
+    /**
+     * Candidate injection point for initialisers in a target ctor, either a
+     * super or this ctor invocation (key is null) or a field write 
+     */
+    static final class InitialiserCandidate {
+        
+        /**
+         * Candidate insn 
+         */
+        final AbstractInsnNode insn;
+        
+        /**
+         * Field key for field writes, null for ctor invocations 
+         */
+        final String key;
+        
+        InitialiserCandidate(AbstractInsnNode insn, String key) {
+            this.insn = insn;
+            this.key = key;
+        }
+        
+    }
+    
     /**
      * Internal struct for representing a range
      */
@@ -225,6 +252,11 @@ class MixinApplicatorStandard {
      */
     protected final ClassNode targetClass;
     
+    /**
+     * Initialiser injection candidates in each target ctor 
+     */
+    private final Map<MethodNode, List<InitialiserCandidate>> initialiserIndex = new IdentityHashMap<MethodNode, List<InitialiserCandidate>>();
+    
     MixinApplicatorStandard(TargetClassContext context) {
         this.context = context;
         this.targetName = context.getClassName();
@@ -236,17 +268,28 @@ class MixinApplicatorStandard {
      */
     void apply(SortedSet<MixinInfo> mixins) {
         List<MixinTargetContext> mixinContexts = new ArrayList<MixinTargetContext>();
+        Profiler profiler = MixinEnvironment.getProfiler();
         
         for (MixinInfo mixin : mixins) {
             this.logger.log(mixin.getLoggingLevel(), "Mixing {} from {} into {}", mixin.getName(), mixin.getParent(), this.targetName);
-            mixinContexts.add(mixin.createContextFor(this.context));
+            Section timer = profiler.begin(Profiler.Phase.CONTEXT, mixin, this.targetName);
+            try {
+                mixinContexts.add(mixin.createContextFor(this.context));
+            } finally {
+                timer.end();
+            }
         }
         
         MixinTargetContext current = null;
         
         try {
             for (MixinTargetContext context : mixinContexts) {
-                (current = context).preApply(this.targetName, this.targetClass);
+                Section timer = profiler.begin(Profiler.Phase.PRE_APPLY, context.getInfo(), this.targetName);
+                try {
+                    (current = context).preApply(this.targetName, this.targetClass);
+                } finally {
+                    timer.end();
+                }
             }
             
             for (ApplicatorPass pass : ApplicatorPass.values()) {
@@ -256,7 +299,12 @@ class MixinApplicatorStandard {
             }
             
             for (MixinTargetContext context : mixinContexts) {
-                (current = context).postApply(this.targetName, this.targetClass);
+                Section timer = profiler.begin(Profiler.Phase.POST_APPLY, context.getInfo(), this.targetName);
+                try {
+                    (current = context).postApply(this.targetName, this.targetClass);
+                } finally {
+                    timer.end();
+                }
             }
         } catch (InvalidMixinException ex) {
             throw ex;
@@ -275,23 +323,46 @@ class MixinApplicatorStandard {
      * @param mixin Mixin to apply
      */
     protected final void applyMixin(MixinTargetContext mixin, ApplicatorPass pass) {
+        Profiler profiler = MixinEnvironment.getProfiler();
+        Section timer;
+        
         switch (pass) {
             case MAIN:
-                this.applyInterfaces(mixin);
-                this.applyAttributes(mixin);
-                this.applyAnnotations(mixin);
-                this.applyFields(mixin);
-                this.applyMethods(mixin);
-                this.applyInitialisers(mixin);
+                timer = profiler.begin(Profiler.Phase.APPLY_MAIN, mixin.getInfo(), this.targetName);
+                try {
+                    this.applyInterfaces(mixin);
+                    this.applyAttributes(mixin);
+                    this.applyAnnotations(mixin);
+                    this.applyFields(mixin);
+                    this.applyMethods(mixin);
+                    this.applyInitialisers(mixin);
+                } finally {
+                    timer.end();
+                }
                 break;
                 
             case PREINJECT:
-                this.prepareInjections(mixin);
+                timer = profiler.begin(Profiler.Phase.APPLY_PREINJECT, mixin.getInfo(), this.targetName);
+                try {
+                    this.prepareInjections(mixin);
+                } finally {
+                    timer.end();
+                }
                 break;
                 
             case INJECT:
-                this.applyAccessors(mixin);
-                this.applyInjections(mixin);
+                timer = profiler.begin(Profiler.Phase.APPLY_ACCESSORS, mixin.getInfo(), this.targetName);
+                try {
+                    this.applyAccessors(mixin);
+                } finally {
+                    timer.end();
+                }
+                timer = profiler.begin(Profiler.Phase.APPLY_INJECT, mixin.getInfo(), this.targetName);
+                try {
+                    this.applyInjections(mixin);
+                } finally {
+                    timer.end();
+                }
                 break;
                 
             default:
@@ -369,7 +440,7 @@ class MixinApplicatorStandard {
             FieldNode target = this.findTargetField(field);
             if (target == null) {
                 // This is just a local field, so add it
-                this.targetClass.fields.add(field);
+                this.context.addField(field);
             }
         }
     }
@@ -431,14 +502,14 @@ class MixinApplicatorStandard {
                     return;
                 }
             } else {
-                this.targetClass.methods.remove(target);
+                this.context.removeMethod(target);
             }
         } else if (isOverwrite) {
             throw new InvalidMixinException(mixin, String.format("Overwrite target \"%s\" was not located in target class %s",
                     method.name, mixin.getTargetClassRef()));
         }
         
-        this.targetClass.methods.add(method);
+        this.context.addMethod(method);
         mixin.addMergedMethod(method);
     }
 
@@ -556,7 +627,7 @@ class MixinApplicatorStandard {
             }
         }
         
-        target.name = proxyName;
+        this.context.renameMethod(target, proxyName);
     }
 
     /**
@@ -591,7 +662,7 @@ class MixinApplicatorStandard {
             return;
         }
         
-        this.targetClass.methods.add(method);
+        this.context.addMethod(method);
     }
     
     /**
@@ -601,15 +672,40 @@ class MixinApplicatorStandard {
      * @param mixin
      */
     protected void applyInitialisers(MixinTargetContext mixin) {
-        // Try to find a suitable constructor, we need a constructor with line numbers in order to extract the initialiser 
-        MethodNode ctor = this.getConstructor(mixin);
-        if (ctor == null) {
+        MixinInfo info = mixin.getInfo();
+        InitialiserTemplate template = info.getInitialiserTemplate();
+        if (template != null && template.isEmpty()) {
             return;
         }
         
-        // Find the initialiser instructions in the candidate ctor
-        Deque<AbstractInsnNode> initialiser = this.getInitialiser(mixin, ctor);
-        if (initialiser == null || initialiser.size() == 0) {
+        MethodNode ctor = null;
+        Deque<AbstractInsnNode> initialiser = null;
+        
+        if (template != null) {
+            ctor = template.findConstructor(mixin);
+            initialiser = ctor != null ? template.extract(ctor) : null;
+        }
+        
+        if (initialiser == null) {
+            // Try to find a suitable constructor, we need a constructor with line numbers in order to extract the initialiser 
+            ctor = this.getConstructor(mixin);
+            if (ctor == null) {
+                info.setInitialiserTemplate(InitialiserTemplate.empty(info.getClassBytes()));
+                return;
+            }
+            
+            // Find the initialiser instructions in the candidate ctor
+            AbstractInsnNode[] original = ctor.instructions.toArray();
+            initialiser = this.getInitialiser(mixin, ctor);
+            if (initialiser == null) {
+                info.setInitialiserTemplate(InitialiserTemplate.empty(info.getClassBytes()));
+                return;
+            }
+            
+            info.setInitialiserTemplate(InitialiserTemplate.create(info.getClassBytes(), ctor, original, initialiser));
+        }
+        
+        if (initialiser.size() == 0) {
             return;
         }
         
@@ -772,14 +868,16 @@ class MixinApplicatorStandard {
      * @param initialiser
      */
     protected final void injectInitialiser(MixinTargetContext mixin, MethodNode ctor, Deque<AbstractInsnNode> initialiser) {
-        Map<LabelNode, LabelNode> labels = ASMHelper.cloneLabels(ctor.instructions);
-        
         AbstractInsnNode insn = this.findInitialiserInjectionPoint(mixin, ctor, initialiser);
         if (insn == null) {
             this.logger.warn("Failed to locate initialiser injection point in <init>{}, initialiser was not mixed in.", ctor.desc);
             return;
         }
 
+        // Initialiser insns never reference labels in the target ctor, so there is no need to clone them
+        Map<LabelNode, LabelNode> labels = Collections.<LabelNode, LabelNode>emptyMap();
+        List<InitialiserCandidate> candidates = new ArrayList<InitialiserCandidate>();
+        AbstractInsnNode anchor = insn;
         for (AbstractInsnNode node : initialiser) {
             if (node instanceof LabelNode) {
                 continue;
@@ -790,7 +888,13 @@ class MixinApplicatorStandard {
             AbstractInsnNode imACloneNow = node.clone(labels);
             ctor.instructions.insert(insn, imACloneNow);
             insn = imACloneNow;
+            InitialiserCandidate candidate = MixinApplicatorStandard.getInitialiserCandidate(mixin, imACloneNow);
+            if (candidate != null) {
+                candidates.add(candidate);
+            }
         }
+        
+        this.updateInitialiserIndex(ctor, anchor, candidates);
     }
 
     /**
@@ -811,30 +915,94 @@ class MixinApplicatorStandard {
         }
 
         InitialiserInjectionMode mode = this.getInitialiserInjectionMode(mixin.getEnvironment());
-        String targetName = mixin.getTargetClassInfo().getName(); 
-        String targetSuperName = mixin.getTargetClassInfo().getSuperName();
         AbstractInsnNode targetInsn = null;
 
-        for (Iterator<AbstractInsnNode> iter = ctor.instructions.iterator(); iter.hasNext();) {
-            AbstractInsnNode insn = iter.next();
-            if (insn.getOpcode() == Opcodes.INVOKESPECIAL && Constants.CTOR.equals(((MethodInsnNode)insn).name)) {
-                String owner = ((MethodInsnNode)insn).owner;
-                if (owner.equals(targetName) || owner.equals(targetSuperName)) {
-                    targetInsn = insn;
-                    if (mode == InitialiserInjectionMode.SAFE) {
-                        break;
-                    }
+        for (InitialiserCandidate candidate : this.getInitialiserIndex(mixin, ctor)) {
+            if (candidate.key == null) {
+                targetInsn = candidate.insn;
+                if (mode == InitialiserInjectionMode.SAFE) {
+                    break;
                 }
-            } else if (insn.getOpcode() == Opcodes.PUTFIELD && mode == InitialiserInjectionMode.DEFAULT) {
-                String key = MixinApplicatorStandard.fieldKey((FieldInsnNode)insn);
-                if (initialisedFields.contains(key)) {
-                    targetInsn = insn;
-                }
-            }            
+            } else if (mode == InitialiserInjectionMode.DEFAULT && initialisedFields.contains(candidate.key)) {
+                targetInsn = candidate.insn;
+            }
         }
         
         return targetInsn;
     }
+    
+    /**
+     * Get the index of initialiser injection candidates for the specified
+     * target ctor, the index is built the first time it is requested and then
+     * updated as initialisers are injected into the ctor
+     * 
+     * @param mixin mixin context
+     * @param ctor target ctor
+     * @return candidates in insn order
+     */
+    private List<InitialiserCandidate> getInitialiserIndex(MixinTargetContext mixin, MethodNode ctor) {
+        List<InitialiserCandidate> candidates = this.initialiserIndex.get(ctor);
+        if (candidates != null) {
+            return candidates;
+        }
+        
+        candidates = new ArrayList<InitialiserCandidate>();
+        for (Iterator<AbstractInsnNode> iter = ctor.instructions.iterator(); iter.hasNext();) {
+            InitialiserCandidate candidate = MixinApplicatorStandard.getInitialiserCandidate(mixin, iter.next());
+            if (candidate != null) {
+                candidates.add(candidate);
+            }
+        }
+        
+        this.initialiserIndex.put(ctor, candidates);
+        return candidates;
+    }
+    
+    /**
+     * Get the initialiser injection candidate for the specified insn, the
+     * candidates are ctor invocations on the target class or its superclass
+     * and field writes
+     * 
+     * @param mixin mixin context
+     * @param insn insn to check
+     * @return candidate or null if the insn is not a candidate
+     */
+    private static InitialiserCandidate getInitialiserCandidate(MixinTargetContext mixin, AbstractInsnNode insn) {
+        if (insn.getOpcode() == Opcodes.INVOKESPECIAL && Constants.CTOR.equals(((MethodInsnNode)insn).name)) {
+            String owner = ((MethodInsnNode)insn).owner;
+            if (owner.equals(mixin.getTargetClassInfo().getName()) || owner.equals(mixin.getTargetClassInfo().getSuperName())) {
+                return new InitialiserCandidate(insn, null);
+            }
+        } else if (insn.getOpcode() == Opcodes.PUTFIELD) {
+            return new InitialiserCandidate(insn, MixinApplicatorStandard.fieldKey((FieldInsnNode)insn));
+        }
+        return null;
+    }
+    
+    /**
+     * Add candidates injected after the specified anchor insn to the
+     * initialiser index for the ctor
+     * 
+     * @param ctor target ctor
+     * @param anchor insn the initialiser was injected after
+     * @param injected injected candidates, in insn order
+     */
+    private void updateInitialiserIndex(MethodNode ctor, AbstractInsnNode anchor, List<InitialiserCandidate> injected) {
+        List<InitialiserCandidate> candidates = this.initialiserIndex.get(ctor);
+        if (candidates == null) {
+            return;
+        }
+        
+        for (int index = 0; index < candidates.size(); index++) {
+            if (candidates.get(index).insn == anchor) {
+                candidates.addAll(index + 1, injected);
+                return;
+            }
+        }
+        
+        // Injection point was not an indexed candidate, rebuild the index on next use
+        this.initialiserIndex.remove(ctor);
+    }
 
     private InitialiserInjectionMode getInitialiserInjectionMode(MixinEnvironment environment) {
         String strMode = environment.getOptionValue(Option.INITIALISER_INJECTION_MODE);
@@ -1081,13 +1249,7 @@ class MixinApplicatorStandard {
      * @return Target method matching searchFor, or null if not found
      */
     protected final MethodNode findTargetMethod(MethodNode searchFor) {
-        for (MethodNode target : this.targetClass.methods) {
-            if (target.name.equals(searchFor.name) && target.desc.equals(searchFor.desc)) {
-                return target;
-            }
-        }
-        
-        return null;
+        return this.context.findMethod(searchFor.name, searchFor.desc);
     }
 
     /**
@@ -1097,13 +1259,7 @@ class MixinApplicatorStandard {
      * @return Target field matching searchFor, or null if not found
      */
     protected final FieldNode findTargetField(FieldNode searchFor) {
-        for (FieldNode target : this.targetClass.fields) {
-            if (target.name.equals(searchFor.name)) {
-                return target;
-            }
-        }
-
-        return null;
+        return this.context.findField(searchFor.name, null);
     }
     
 }
@@ -26,6 +26,9 @@ package org.spongepowered.asm.mixin.transformer;
 
 import org.spongepowered.asm.lib.ClassReader;
 import org.spongepowered.asm.lib.ClassWriter;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.util.perf.Profiler;
+import org.spongepowered.asm.util.perf.Profiler.Section;
 
 /**
  * ClassWriter which resolves common superclasses using Mixin's metadata instead
@@ -49,6 +52,15 @@ public class MixinClassWriter extends ClassWriter {
      */
     @Override
     protected String getCommonSuperClass(final String type1, final String type2) {
+        Section timer = MixinEnvironment.getProfiler().begin(Profiler.Phase.FRAMES, null, null);
+        try {
+            return MixinClassWriter.findCommonSuperClass(type1, type2);
+        } finally {
+            timer.end();
+        }
+    }
+
+    private static String findCommonSuperClass(final String type1, final String type2) {
         ClassInfo c = ClassInfo.forName(type1);
         ClassInfo d = ClassInfo.forName(type2);
         
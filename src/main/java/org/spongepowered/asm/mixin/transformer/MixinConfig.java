@@ -31,9 +31,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,10 +48,16 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.spongepowered.asm.launch.MixinInitialisationError;
+import org.spongepowered.asm.lib.ClassReader;
+import org.spongepowered.asm.lib.FieldVisitor;
+import org.spongepowered.asm.lib.MethodVisitor;
 import org.spongepowered.asm.lib.Opcodes;
+import org.spongepowered.asm.lib.Type;
+import org.spongepowered.asm.lib.tree.AnnotationNode;
 import org.spongepowered.asm.lib.tree.ClassNode;
 import org.spongepowered.asm.lib.tree.FieldNode;
 import org.spongepowered.asm.lib.tree.MethodNode;
+import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.CompatibilityLevel;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
@@ -55,8 +68,13 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
 import org.spongepowered.asm.mixin.transformer.debug.IHotSwap;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
+import org.spongepowered.asm.util.ASMHelper;
 import org.spongepowered.asm.util.VersionNumber;
+import org.spongepowered.asm.util.perf.Profiler;
+import org.spongepowered.asm.util.perf.Profiler.Section;
 
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 
@@ -80,12 +98,107 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         
     }
     
+    /**
+     * A mixin which has been scanned but not yet prepared, used when mixins
+     * are prepared lazily. Only the class header and the {@link Mixin}
+     * annotation are read from the raw mixin bytecode when the mixin is
+     * scanned, the bytecode is not retained and the mixin is loaded and run
+     * through the transformer chain when it is prepared.
+     */
+    static class PendingMixin {
+        
+        /**
+         * Mixin class name, relative to the mixin package
+         */
+        final String name;
+        
+        /**
+         * Intrinsic order reserved for the mixin when it was scanned
+         */
+        final int order;
+        
+        /**
+         * True if the mixin was supplied by the config plugin
+         */
+        final boolean suppressPlugin;
+        
+        /**
+         * Superclass of the mixin (binary name)
+         */
+        final String superName;
+        
+        /**
+         * Declared targets read from the {@link Mixin} annotation
+         */
+        final List<String> targets = new ArrayList<String>();
+        
+        /**
+         * True once the mixin has been prepared
+         */
+        boolean prepared;
+        
+        PendingMixin(String name, int order, boolean suppressPlugin, String superName) {
+            this.name = name;
+            this.order = order;
+            this.suppressPlugin = suppressPlugin;
+            this.superName = superName;
+        }
+        
+        boolean isPrepared() {
+            return this.prepared;
+        }
+        
+        @Override
+        public String toString() {
+            return this.name;
+        }
+        
+    }
+    
+    /**
+     * ClassNode which only reads the class header and annotations, used to
+     * scan the {@link Mixin} annotation of pending mixins
+     */
+    static class MixinHeaderNode extends ClassNode {
+        
+        MixinHeaderNode() {
+            super(Opcodes.ASM5);
+        }
+        
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            return null;
+        }
+        
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            return null;
+        }
+        
+    }
+    
     /**
      * Global order of mixin configs, used to determine ordering between configs
      * with equivalent priority
      */
     private static int configOrder = 0;
 
+    /**
+     * Upper bound for the number of threads used to prefetch mixin bytecode
+     */
+    private static final int MAX_PREPARE_THREADS = 16;
+    
+    /**
+     * Time after which idle prefetch workers are stopped
+     */
+    private static final long PREPARE_THREAD_KEEPALIVE_SECONDS = 10;
+    
+    /**
+     * Worker pool shared by all configs for prefetching mixin bytecode,
+     * created on first use
+     */
+    private static ExecutorService prepareExecutor;
+
     /**
      * Global list of mixin classes, so we can skip any duplicates
      */
@@ -111,6 +224,18 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      */
     private final transient List<MixinInfo> mixins = new ArrayList<MixinInfo>();
     
+    /**
+     * Mixins which were scanned but have not been prepared yet, mapped by
+     * their declared targets. Only populated when mixins are prepared lazily
+     */
+    private final transient Map<String, List<PendingMixin>> pendingMixinMapping = new HashMap<String, List<PendingMixin>>();
+    
+    /**
+     * Mixins which were scanned but have not been prepared yet, mapped by
+     * fully-qualified mixin class name
+     */
+    private final transient Map<String, PendingMixin> pendingMixins = new LinkedHashMap<String, PendingMixin>();
+    
     /**
      * Synthetic inner classes for mixins in this set
      */
@@ -259,6 +384,12 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      * Keep track of initialisation state 
      */
     private transient boolean prepared = false;
+    
+    /**
+     * True if mixins in this config are scanned when the config is prepared
+     * and only prepared once one of their targets is loaded
+     */
+    private transient boolean lazy = false;
 
     /**
      * Spawn via GSON, no public ctor for you 
@@ -404,6 +535,7 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             return;
         }
         this.prepared = true;
+        this.lazy = this.env.getOption(Option.LAZY_PREPARE);
         
         this.prepareMixins(this.mixinClasses, false, hotSwapper);
         
@@ -428,25 +560,62 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             this.prepareMixins(pluginMixins, true, hotSwapper);
         }
         
+        this.prepareHierarchyMixins(hotSwapper);
+        
         for (Iterator<MixinInfo> iter = this.mixins.iterator(); iter.hasNext();) {
             MixinInfo mixin = iter.next();
-            try {
-                mixin.validate();
-                for (String innerClass : mixin.getSyntheticInnerClasses()) {
-                    this.syntheticInnerClasses.add(innerClass.replace('/', '.'));
-                }
-            } catch (InvalidMixinException ex) {
-                this.logger.error(ex.getMixin() + ": " + ex.getMessage(), ex);
-                this.removeMixin(mixin);
-                iter.remove();
-            } catch (Exception ex) {
-                this.logger.error(ex.getMessage(), ex);
-                this.removeMixin(mixin);
+            if (!this.validateMixin(mixin)) {
                 iter.remove();
             }
         }
     }
 
+    private boolean validateMixin(MixinInfo mixin) {
+        Section timer = MixinEnvironment.getProfiler().begin(Profiler.Phase.POST_INITIALISE, mixin, null);
+        try {
+            mixin.validate();
+            for (String innerClass : mixin.getSyntheticInnerClasses()) {
+                this.syntheticInnerClasses.add(innerClass.replace('/', '.'));
+            }
+            return true;
+        } catch (InvalidMixinException ex) {
+            this.logger.error(ex.getMixin() + ": " + ex.getMessage(), ex);
+        } catch (Exception ex) {
+            this.logger.error(ex.getMessage(), ex);
+        } finally {
+            timer.end();
+        }
+        
+        this.removeMixin(mixin);
+        return false;
+    }
+    
+    /**
+     * Mixins which extend other mixins rely on the {@link ClassInfo} of their
+     * superclass being a mixin, so pending mixins which take part in a mixin
+     * hierarchy are always prepared with the config.
+     */
+    private void prepareHierarchyMixins(IHotSwap hotSwapper) {
+        if (this.pendingMixins.isEmpty()) {
+            return;
+        }
+        
+        String mixinPackageRef = this.mixinPackage.replace('.', '/');
+        Set<String> hierarchyMixins = new HashSet<String>();
+        for (PendingMixin pending : this.pendingMixins.values()) {
+            if (pending.superName != null && pending.superName.startsWith(mixinPackageRef)) {
+                hierarchyMixins.add(this.mixinPackage + pending.name);
+                hierarchyMixins.add(pending.superName.replace('/', '.'));
+            }
+        }
+        
+        for (PendingMixin pending : new ArrayList<PendingMixin>(this.pendingMixins.values())) {
+            if (hierarchyMixins.contains(this.mixinPackage + pending.name)) {
+                this.preparePendingMixin(pending, hotSwapper);
+            }
+        }
+    }
+
     private void removeMixin(MixinInfo remove) {
         for (List<MixinInfo> mixinsFor : this.mixinMapping.values()) {
             for (Iterator<MixinInfo> iter = mixinsFor.iterator(); iter.hasNext();) {
@@ -462,6 +631,8 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             return;
         }
         
+        Map<String, Future<byte[]>> prefetched = this.prefetchMixins(mixinClasses);
+        
         for (String mixinClass : mixinClasses) {
             String fqMixinClass = this.mixinPackage + mixinClass;
             
@@ -469,37 +640,290 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
                 continue;
             }
             
-            MixinInfo mixin = null;
+            byte[] classBytes = this.getPrefetchedBytes(prefetched, fqMixinClass);
+            if (this.lazy && this.scanMixin(mixinClass, classBytes, suppressPlugin)) {
+                continue;
+            }
+            
+            this.prepareMixin(mixinClass, classBytes, MixinInfo.mixinOrder++, suppressPlugin, hotSwapper);
+        }
+    }
+    
+    /**
+     * <p>Fetch the raw bytecode for the specified mixins using the shared
+     * prepare pool. Only the classpath lookup is performed by the workers.</p>
+     * 
+     * <p>Parsing and validation are deliberately left on the calling thread:
+     * the delegate transformer chain which every mixin is run through is not
+     * thread-safe and is guarded by a single re-entrance lock, constructing a
+     * {@link MixinInfo} populates the global {@link ClassInfo} cache (loading
+     * superclasses and targets as it goes) and calls the config plugin, and
+     * validation conforms the mixin against shared target metadata. None of
+     * these are safe to run concurrently, so mixins are transformed, parsed,
+     * validated and registered in declaration order as before.</p>
+     * 
+     * @param mixinClasses Mixins to fetch
+     * @return map of fully-qualified mixin names to pending fetches, empty if
+     *      the worker pool is disabled
+     */
+    private Map<String, Future<byte[]>> prefetchMixins(List<String> mixinClasses) {
+        ExecutorService executor = MixinConfig.getPrepareExecutor(this.env);
+        if (executor == null || mixinClasses.size() < 2) {
+            return Collections.<String, Future<byte[]>>emptyMap();
+        }
+        
+        Map<String, Future<byte[]>> prefetched = new HashMap<String, Future<byte[]>>();
+        for (String mixinClass : mixinClasses) {
+            final String fqMixinClass = this.mixinPackage + mixinClass;
+            if (mixinClass == null || MixinConfig.globalMixinList.contains(fqMixinClass) || prefetched.containsKey(fqMixinClass)) {
+                continue;
+            }
             
-            try {
-                mixin = new MixinInfo(this, mixinClass, true, this.plugin, suppressPlugin);
-                if (mixin.getTargetClasses().size() > 0) {
-                    MixinConfig.globalMixinList.add(fqMixinClass);
-                    for (String targetClass : mixin.getTargetClasses()) {
-                        String targetClassName = targetClass.replace('/', '.');
-                        this.mixinsFor(targetClassName).add(mixin);
-                        this.unhandledTargets.add(targetClassName);
-                    }
-                    if (hotSwapper != null) {
-                        hotSwapper.registerMixinClass(mixin.getClassName());
-                    }
-                    if (mixin.isLoadable()) {
-                        this.passThroughClasses.add(mixin.getClassName());
-                    }
-                    this.mixins.add(mixin);
+            final String name = this.env.unmap(fqMixinClass);
+            prefetched.put(fqMixinClass, executor.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    return TreeInfo.loadClassBytes(name, fqMixinClass);
+                }
+            }));
+        }
+        
+        return prefetched;
+    }
+    
+    /**
+     * Get the raw bytecode of a prefetched mixin. The bytecode is run through
+     * the transformer chain exactly once, when the mixin is prepared.
+     * 
+     * @param prefetched Prefetched mixins
+     * @param fqMixinClass Fully-qualified mixin class name
+     * @return raw mixin bytecode, or null if the mixin was not prefetched or
+     *      the fetch failed, in which case it is fetched again when the mixin
+     *      is prepared so that any error is reported in the usual way
+     */
+    private byte[] getPrefetchedBytes(Map<String, Future<byte[]>> prefetched, String fqMixinClass) {
+        Future<byte[]> fetch = prefetched.get(fqMixinClass);
+        if (fetch == null) {
+            return null;
+        }
+        
+        try {
+            return fetch.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            this.logger.debug("Failed to prefetch mixin {}: {} {}", fqMixinClass, ex.getClass().getSimpleName(), ex.getMessage());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get the worker pool shared by all configs for prefetching mixin
+     * bytecode. The pool is created on first use and sized from the
+     * environment which first requests it, idle workers time out so that the
+     * pool costs nothing once preparation is complete.
+     * 
+     * @param environment Environment being prepared
+     * @return shared pool, or null if the worker pool is disabled
+     */
+    private static synchronized ExecutorService getPrepareExecutor(MixinEnvironment environment) {
+        if (MixinConfig.prepareExecutor == null) {
+            int threads = MixinConfig.getPrepareThreads(environment);
+            if (threads < 2) {
+                return null;
+            }
+            
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, MixinConfig.PREPARE_THREAD_KEEPALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactoryBuilder().setNameFormat("Mixin prepare thread %d").setDaemon(true).build());
+            executor.allowCoreThreadTimeOut(true);
+            MixinConfig.prepareExecutor = executor;
+        }
+        
+        return MixinConfig.prepareExecutor;
+    }
+
+    private static int getPrepareThreads(MixinEnvironment environment) {
+        try {
+            int threads = Integer.parseInt(environment.getOptionValue(Option.PREPARE_THREADS).trim());
+            return Math.min(threads, MixinConfig.MAX_PREPARE_THREADS);
+        } catch (Exception ex) {
+            return 1;
+        }
+    }
+
+    /**
+     * Read the declared targets of a mixin and register it as pending. The
+     * raw bytecode is scanned without running the transformer chain, which is
+     * deferred until the mixin is prepared. If the mixin cannot be scanned it
+     * is prepared eagerly instead, so that any errors are raised in exactly
+     * the same way as for eager preparation.
+     * 
+     * @param mixinClass Mixin class name, relative to the mixin package
+     * @param mixinBytes Prefetched raw mixin bytecode, can be null
+     * @param suppressPlugin True if the mixin was supplied by the plugin
+     * @return true if the mixin was scanned and registered as pending
+     */
+    private boolean scanMixin(String mixinClass, byte[] mixinBytes, boolean suppressPlugin) {
+        String fqMixinClass = this.mixinPackage + mixinClass;
+        
+        try {
+            if (mixinBytes == null) {
+                mixinBytes = TreeInfo.loadClassBytes(this.env.unmap(fqMixinClass), fqMixinClass);
+            }
+            MixinHeaderNode classNode = new MixinHeaderNode();
+            new ClassReader(mixinBytes).accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            
+            AnnotationNode mixin = ASMHelper.getInvisibleAnnotation(classNode, Mixin.class);
+            if (mixin == null) {
+                return false;
+            }
+            
+            PendingMixin pending = new PendingMixin(mixinClass, MixinInfo.mixinOrder++, suppressPlugin, classNode.superName);
+            
+            List<Type> publicTargets = ASMHelper.getAnnotationValue(mixin, "value");
+            if (publicTargets != null) {
+                for (Type target : publicTargets) {
+                    pending.targets.add(target.getClassName());
                 }
-            } catch (InvalidMixinException ex) {
-                if (this.required) {
-                    throw ex;
+            }
+            
+            List<String> privateTargets = ASMHelper.getAnnotationValue(mixin, "targets");
+            if (privateTargets != null) {
+                for (String target : privateTargets) {
+                    pending.targets.add(this.remapClassName(classNode.name, target).replace('/', '.'));
                 }
-                this.logger.error(ex.getMessage(), ex);
-            } catch (Exception ex) {
-                if (this.required) {
-                    throw new InvalidMixinException(mixin, "Error initialising mixin " + mixin + " - " + ex.getClass() + ": " + ex.getMessage(), ex);
+            }
+            
+            if (pending.targets.size() > 0) {
+                MixinConfig.globalMixinList.add(fqMixinClass);
+                this.pendingMixins.put(fqMixinClass, pending);
+                for (String targetClassName : pending.targets) {
+                    this.pendingMixinsFor(targetClassName).add(pending);
+                    this.unhandledTargets.add(targetClassName);
                 }
-                this.logger.error(ex.getMessage(), ex);
             }
+            
+            return true;
+        } catch (Exception ex) {
+            this.logger.debug("Could not scan mixin {}, the mixin will be prepared now. {}: {}", fqMixinClass, ex.getClass().getSimpleName(),
+                    ex.getMessage());
         }
+        
+        return false;
+    }
+
+    private MixinInfo prepareMixin(String mixinClass, byte[] classBytes, int order, boolean suppressPlugin, IHotSwap hotSwapper) {
+        String fqMixinClass = this.mixinPackage + mixinClass;
+        MixinInfo mixin = null;
+        Section timer = MixinEnvironment.getProfiler().begin(Profiler.Phase.PREPARE, this.name + ":" + mixinClass, null);
+        
+        try {
+            mixin = new MixinInfo(this, mixinClass, classBytes, order, this.plugin, suppressPlugin);
+            if (mixin.getTargetClasses().size() > 0) {
+                MixinConfig.globalMixinList.add(fqMixinClass);
+                for (String targetClass : mixin.getTargetClasses()) {
+                    String targetClassName = targetClass.replace('/', '.');
+                    this.mixinsFor(targetClassName).add(mixin);
+                    this.unhandledTargets.add(targetClassName);
+                }
+                if (hotSwapper != null) {
+                    hotSwapper.registerMixinClass(mixin.getClassName());
+                }
+                if (mixin.isLoadable()) {
+                    this.passThroughClasses.add(mixin.getClassName());
+                }
+                this.mixins.add(mixin);
+                return mixin;
+            }
+        } catch (InvalidMixinException ex) {
+            if (this.required) {
+                throw ex;
+            }
+            this.logger.error(ex.getMessage(), ex);
+        } catch (Exception ex) {
+            if (this.required) {
+                throw new InvalidMixinException(mixin, "Error initialising mixin " + mixin + " - " + ex.getClass() + ": " + ex.getMessage(), ex);
+            }
+            this.logger.error(ex.getMessage(), ex);
+        } finally {
+            timer.end();
+        }
+        
+        return null;
+    }
+
+    /**
+     * Prepare a pending mixin, the mixin is removed from the pending set
+     * regardless of whether preparation succeeds
+     * 
+     * @return prepared mixin or null if preparation failed
+     */
+    private MixinInfo preparePendingMixin(PendingMixin pending, IHotSwap hotSwapper) {
+        pending.prepared = true;
+        this.pendingMixins.remove(this.mixinPackage + pending.name);
+        for (String targetClassName : pending.targets) {
+            List<PendingMixin> pendingFor = this.pendingMixinMapping.get(targetClassName);
+            if (pendingFor != null && pendingFor.remove(pending) && pendingFor.isEmpty()) {
+                this.pendingMixinMapping.remove(targetClassName);
+            }
+        }
+        
+        return this.prepareMixin(pending.name, null, pending.order, pending.suppressPlugin, hotSwapper);
+    }
+
+    /**
+     * Prepare and validate all pending mixins which declare the specified
+     * class as a target, or the pending mixin with the specified name if the
+     * class is itself a pending mixin. Mixins which fail validation are
+     * discarded in the same way as during {@link #postInitialise}.
+     * 
+     * @param className Class being loaded
+     * @param hotSwapper Hot-swap agent
+     * @return number of mixins prepared
+     */
+    int preparePendingMixins(String className, IHotSwap hotSwapper) {
+        List<PendingMixin> pending = new ArrayList<PendingMixin>();
+        if (this.pendingMixins.containsKey(className)) {
+            pending.add(this.pendingMixins.get(className));
+        } else if (this.pendingMixinMapping.containsKey(className)) {
+            pending.addAll(this.pendingMixinMapping.get(className));
+        }
+        
+        int count = 0;
+        for (PendingMixin mixin : pending) {
+            if (mixin.isPrepared()) {
+                continue;
+            }
+            MixinInfo info = this.preparePendingMixin(mixin, hotSwapper);
+            if (info != null && this.validateMixin(info)) {
+                count++;
+            } else if (info != null) {
+                this.mixins.remove(info);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Get whether this config has pending mixins which target the specified
+     * class, or whether the class is a pending mixin
+     * 
+     * @param className Class name to check
+     * @return true if pending mixins would be prepared for this class
+     */
+    boolean hasPendingMixinsFor(String className) {
+        return this.pendingMixinMapping.containsKey(className) || this.pendingMixins.containsKey(className);
+    }
+
+    private List<PendingMixin> pendingMixinsFor(String targetClass) {
+        List<PendingMixin> pending = this.pendingMixinMapping.get(targetClass);
+        if (pending == null) {
+            pending = new ArrayList<PendingMixin>();
+            this.pendingMixinMapping.put(targetClass, pending);
+        }
+        return pending;
     }
 
     void postApply(String transformedName, ClassNode targetClass) {
@@ -608,6 +1032,16 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         return this.mixins.size();
     }
 
+    /**
+     * Get the number of mixins which have been scanned but not yet prepared,
+     * for debug logging
+     * 
+     * @return total pending mixins in set
+     */
+    int getPendingMixinCount() {
+        return this.pendingMixins.size();
+    }
+
     /**
      * Get the list of mixin classes we will be applying
      */
@@ -655,6 +1089,9 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      */
     @Override
     public Set<String> getTargets() {
+        if (!this.pendingMixinMapping.isEmpty()) {
+            return Collections.<String>unmodifiableSet(Sets.union(this.mixinMapping.keySet(), this.pendingMixinMapping.keySet()));
+        }
         return Collections.<String>unmodifiableSet(this.mixinMapping.keySet());
     }
     
@@ -779,6 +1216,21 @@ class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         }
         return Collections.<String>emptyList();
     }
+
+    /**
+     * Reverts the most recent reload of a mixin
+     *
+     * @param mixinClass Name of the mixin class
+     * @return true if the mixin belongs to this config and was reverted
+     */
+    public boolean revertMixin(String mixinClass) {
+        for (MixinInfo mixin : this.mixins) {
+            if (mixin.getClassName().equals(mixinClass)) {
+                return mixin.revertReload();
+            }
+        }
+        return false;
+    }
     
     @Override
     public String toString() {
@@ -37,6 +37,7 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.spongepowered.asm.lib.ClassReader;
+import org.spongepowered.asm.lib.FieldVisitor;
 import org.spongepowered.asm.lib.MethodVisitor;
 import org.spongepowered.asm.lib.Opcodes;
 import org.spongepowered.asm.lib.tree.AnnotationNode;
@@ -64,6 +65,8 @@ import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
 import org.spongepowered.asm.mixin.transformer.throwables.MixinReloadException;
 import org.spongepowered.asm.mixin.transformer.throwables.MixinTargetAlreadyLoadedException;
 import org.spongepowered.asm.util.ASMHelper;
+import org.spongepowered.asm.util.AnnotationIndex;
+import org.spongepowered.asm.util.AnnotationIndex.IAnnotated;
 import org.spongepowered.asm.util.launchwrapper.LaunchClassLoaderUtil;
 
 import com.google.common.base.Function;
@@ -80,10 +83,12 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
     /**
      * A MethodNode in a mixin
      */
-    class MixinMethodNode extends MethodNode {
+    class MixinMethodNode extends MethodNode implements IAnnotated {
         
         private final String originalName;
         
+        private final AnnotationIndex annotations = new AnnotationIndex();
+        
         public MixinMethodNode(int access, String name, String desc, String signature, String[] exceptions) {
             super(Opcodes.ASM5, access, name, desc, signature, exceptions);
             this.originalName = name;
@@ -105,9 +110,30 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
         public boolean isSurrogate() {
             return this.getVisibleAnnotation(Surrogate.class) != null;
         }
+        
+        public boolean isShadow() {
+            return this.getVisibleAnnotation(Shadow.class) != null;
+        }
+        
+        public boolean isOverwrite() {
+            return this.getVisibleAnnotation(Overwrite.class) != null;
+        }
+        
+        public boolean isUnique() {
+            return this.getVisibleAnnotation(Unique.class) != null;
+        }
 
         public AnnotationNode getVisibleAnnotation(Class<? extends Annotation> annotationClass) {
-            return ASMHelper.getVisibleAnnotation(this, annotationClass);
+            return this.annotations.getVisible(this.visibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
+        }
+
+        public AnnotationNode getInvisibleAnnotation(Class<? extends Annotation> annotationClass) {
+            return this.annotations.getInvisible(this.invisibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
+        }
+        
+        @Override
+        public AnnotationIndex getAnnotationIndex() {
+            return this.annotations;
         }
 
         public AnnotationNode getInjectorAnnotation() {
@@ -120,6 +146,40 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
 
     }
     
+    /**
+     * A FieldNode in a mixin
+     */
+    class MixinFieldNode extends FieldNode implements IAnnotated {
+        
+        private final AnnotationIndex annotations = new AnnotationIndex();
+        
+        public MixinFieldNode(int access, String name, String desc, String signature, Object value) {
+            super(Opcodes.ASM5, access, name, desc, signature, value);
+        }
+        
+        public boolean isShadow() {
+            return this.getVisibleAnnotation(Shadow.class) != null;
+        }
+        
+        public boolean isUnique() {
+            return this.getVisibleAnnotation(Unique.class) != null;
+        }
+
+        public AnnotationNode getVisibleAnnotation(Class<? extends Annotation> annotationClass) {
+            return this.annotations.getVisible(this.visibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
+        }
+        
+        @Override
+        public AnnotationIndex getAnnotationIndex() {
+            return this.annotations;
+        }
+        
+        public IMixinInfo getOwner() {
+            return MixinInfo.this;
+        }
+        
+    }
+    
     /**
      * ClassNode for a MixinInfo
      */
@@ -148,6 +208,13 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
             return method;
         }
         
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            FieldNode field = new MixinFieldNode(access, name, desc, signature, value);
+            this.fields.add(field);
+            return field;
+        }
+        
     }
 
     /**
@@ -700,7 +767,7 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
     /**
      * Intrinsic order (for sorting mixins with identical priority)
      */
-    private final transient int order = MixinInfo.mixinOrder++;
+    private final transient int order;
 
     /**
      * Configuration plugin
@@ -737,6 +804,11 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
      */
     private transient State state;
     
+    /**
+     * Initialiser extracted from the mixin constructor, shared by all targets 
+     */
+    private transient InitialiserTemplate initialiser;
+    
     /**
      * Internal ctor, called by {@link MixinConfig}
      * 
@@ -747,16 +819,43 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
      * @param suppressPlugin 
      */
     MixinInfo(MixinConfig parent, String mixinName, boolean runTransformers, IMixinConfigPlugin plugin, boolean suppressPlugin) {
+        this(parent, mixinName, runTransformers, null, MixinInfo.mixinOrder++, plugin, suppressPlugin);
+    }
+    
+    /**
+     * Internal ctor, called by {@link MixinConfig} when preparing a mixin
+     * which was previously scanned for lazy preparation, or whose bytecode
+     * was prefetched. The intrinsic order is supplied by the caller since it
+     * is reserved when the mixin is scanned, so that the ordering of mixins is
+     * the same as it would be if the mixin had been prepared eagerly. The
+     * supplied bytecode is the raw bytecode fetched from the classpath, it is
+     * run through the transformer chain here. If it is null the mixin is
+     * fetched here as well.
+     * 
+     * @param parent
+     * @param mixinName
+     * @param classBytes
+     * @param order
+     * @param plugin 
+     * @param suppressPlugin 
+     */
+    MixinInfo(MixinConfig parent, String mixinName, byte[] classBytes, int order, IMixinConfigPlugin plugin, boolean suppressPlugin) {
+        this(parent, mixinName, true, classBytes, order, plugin, suppressPlugin);
+    }
+    
+    private MixinInfo(MixinConfig parent, String mixinName, boolean runTransformers, byte[] classBytes, int order, IMixinConfigPlugin plugin,
+            boolean suppressPlugin) {
         this.parent = parent;
         this.name = mixinName;
         this.className = parent.getMixinPackage() + mixinName;
+        this.order = order;
         this.plugin = plugin;
         this.phase = parent.getEnvironment().getPhase();
         this.strict = parent.getEnvironment().getOption(Option.DEBUG_TARGETS);
         
         // Read the class bytes and transform
         try {
-            byte[] mixinBytes = this.loadMixinClass(this.className, runTransformers);
+            byte[] mixinBytes = this.loadMixinClass(this.className, classBytes, runTransformers);
             this.pendingState = new State(mixinBytes);
             this.info = this.pendingState.getClassInfo();
             this.type = SubType.getTypeFor(this);
@@ -1092,15 +1191,16 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
 
     /**
      * @param mixinClassName
+     * @param classBytes prefetched raw bytecode, can be null
      * @param runTransformers
      * @return
      * @throws ClassNotFoundException 
      */
-    private byte[] loadMixinClass(String mixinClassName, boolean runTransformers) throws ClassNotFoundException {
+    private byte[] loadMixinClass(String mixinClassName, byte[] classBytes, boolean runTransformers) throws ClassNotFoundException {
         byte[] mixinBytes = null;
 
         try {
-            mixinBytes = TreeInfo.loadClass(mixinClassName, runTransformers);
+            mixinBytes = TreeInfo.loadClass(mixinClassName, classBytes, runTransformers);
         } catch (ClassNotFoundException ex) {
             throw new ClassNotFoundException(String.format("The specified mixin '%s' was not found", mixinClassName));
         } catch (IOException ex) {
@@ -1111,6 +1211,25 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
         return mixinBytes;
     }
 
+    /**
+     * Get the initialiser template extracted from this mixin's constructor,
+     * returns null if the initialiser has not yet been extracted from the
+     * current bytecode
+     */
+    InitialiserTemplate getInitialiserTemplate() {
+        InitialiserTemplate template = this.initialiser;
+        return template != null && template.isValidFor(this.getClassBytes()) ? template : null;
+    }
+    
+    /**
+     * Set the initialiser template for this mixin
+     * 
+     * @param template extracted initialiser template
+     */
+    void setInitialiserTemplate(InitialiserTemplate template) {
+        this.initialiser = template;
+    }
+
     /**
      * Updates this mixin with new bytecode
      *
@@ -1124,6 +1243,20 @@ class MixinInfo extends TreeInfo implements Comparable<MixinInfo>, IMixinInfo {
         this.validate();
     }
 
+    /**
+     * Reverts the most recent reload of this mixin, restoring the state which
+     * was valid before the reload
+     *
+     * @return true if a reload was reverted
+     */
+    boolean revertReload() {
+        if (!(this.state instanceof Reloaded)) {
+            return false;
+        }
+        this.state = ((Reloaded)this.state).previous;
+        return true;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Comparable#compareTo(java.lang.Object)
      */
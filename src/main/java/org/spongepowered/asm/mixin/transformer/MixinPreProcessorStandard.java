@@ -43,6 +43,8 @@ import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.gen.Accessor;
 import org.spongepowered.asm.mixin.gen.Invoker;
 import org.spongepowered.asm.mixin.gen.throwables.InvalidAccessorException;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CancellationAnalyser;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Field;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Method;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.SearchType;
@@ -128,6 +130,7 @@ class MixinPreProcessorStandard {
     protected void prepareMethod(MixinMethodNode mixinMethod, Method method) {
         this.prepareShadow(mixinMethod, method);
         this.prepareSoftImplements(mixinMethod, method);
+        this.prepareInjector(mixinMethod, method);
     }
 
     protected void prepareShadow(MixinMethodNode mixinMethod, Method method) {
@@ -152,6 +155,34 @@ class MixinPreProcessorStandard {
         }
     }
 
+    /**
+     * Downgrade cancellable injectors whose handler provably never cancels the
+     * callback to non-cancellable, so that the callback info is not retained
+     * and checked after the handler returns at each injection point. Injectors
+     * with surrogates are left alone since the surrogate may cancel.
+     * 
+     * @param mixinMethod mixin method
+     * @param method method metadata
+     */
+    protected void prepareInjector(MixinMethodNode mixinMethod, Method method) {
+        AnnotationNode inject = mixinMethod.getVisibleAnnotation(Inject.class);
+        if (inject == null || !ASMHelper.<Boolean>getAnnotationValue(inject, "cancellable", Boolean.FALSE).booleanValue()) {
+            return;
+        }
+        
+        for (MixinMethodNode surrogate : this.classNode.mixinMethods) {
+            if (surrogate != mixinMethod && surrogate.name.equals(mixinMethod.name) && surrogate.isSurrogate()) {
+                return;
+            }
+        }
+        
+        if (CancellationAnalyser.canDowngrade(mixinMethod)) {
+            MixinPreProcessorStandard.logger.log(this.mixin.getLoggingLevel(), "Downgrading cancellable injector {}{} in {}, handler never cancels",
+                    mixinMethod.name, mixinMethod.desc, this.mixin);
+            ASMHelper.setAnnotationValue(inject, "cancellable", Boolean.FALSE);
+        }
+    }
+
     protected void prepareField(FieldNode mixinField) {
         // stub
     }
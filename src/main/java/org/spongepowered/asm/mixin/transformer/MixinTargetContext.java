@@ -802,6 +802,17 @@ public class MixinTargetContext implements IReferenceMapperContext {
         return this.targetClass.getTargetMethod(method);
     }
     
+    /**
+     * Find a method in the target class by exact name and descriptor
+     * 
+     * @param name method name
+     * @param desc method descriptor
+     * @return matching target method or null if not found
+     */
+    public MethodNode findTargetMethod(String name, String desc) {
+        return this.targetClass.findMethod(name, desc);
+    }
+    
     MethodNode findMethod(MethodNode method, AnnotationNode annotation) {
         Deque<String> aliases = new LinkedList<String>();
         aliases.add(method.name);
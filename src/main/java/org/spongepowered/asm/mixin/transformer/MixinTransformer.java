@@ -58,6 +58,7 @@ import org.spongepowered.asm.mixin.throwables.MixinApplyError;
 import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.mixin.throwables.MixinPrepareError;
 import org.spongepowered.asm.mixin.transformer.MixinTransformerModuleCheckClass.ValidationFailedException;
+import org.spongepowered.asm.mixin.transformer.debug.ClassExporter;
 import org.spongepowered.asm.mixin.transformer.debug.IDecompiler;
 import org.spongepowered.asm.mixin.transformer.debug.IHotSwap;
 import org.spongepowered.asm.mixin.transformer.meta.MixinMerged;
@@ -66,6 +67,11 @@ import org.spongepowered.asm.mixin.transformer.throwables.MixinTransformerError;
 import org.spongepowered.asm.transformers.TreeTransformer;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.PrettyPrinter;
+import org.spongepowered.asm.util.perf.Profiler;
+import org.spongepowered.asm.util.perf.Profiler.Section;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableList.Builder;
 
 import net.minecraft.launchwrapper.IClassTransformer;
 import net.minecraft.launchwrapper.Launch;
@@ -317,6 +323,17 @@ public class MixinTransformer extends TreeTransformer {
      * Transformer modules
      */
     private final List<IMixinTransformerModule> modules = new ArrayList<IMixinTransformerModule>();
+    
+    /**
+     * Error handler instances, resolved once when an environment is selected
+     */
+    private List<IMixinErrorHandler> errorHandlers = ImmutableList.<IMixinErrorHandler>of();
+    
+    /**
+     * Error handler classes which could not be instanced, tracked so that the
+     * failure is only logged once
+     */
+    private final Set<String> failedErrorHandlers = new HashSet<String>();
 
     /**
      * Current environment 
@@ -354,6 +371,11 @@ public class MixinTransformer extends TreeTransformer {
      * Runtime decompiler for exported classes 
      */
     private final IDecompiler decompiler;
+    
+    /**
+     * Background writer for exported classes
+     */
+    private final ClassExporter exporter;
 
     /**
      * Hot-Swap agent
@@ -377,6 +399,8 @@ public class MixinTransformer extends TreeTransformer {
         TreeInfo.setLock(this.lock);
         
         this.decompiler = this.initDecompiler(new File(MixinTransformer.DEBUG_OUTPUT, "java"));
+        this.exporter = new ClassExporter(this.classExportDir, "jar".equalsIgnoreCase(environment.getOptionValue(Option.DEBUG_EXPORT_FORMAT)),
+                this.decompiler);
         this.hotSwapper = this.initHotSwapper();
 
         try {
@@ -483,6 +507,8 @@ public class MixinTransformer extends TreeTransformer {
         }
         
         try {
+            this.preparePendingMixins(transformedName, environment);
+            
             SortedSet<MixinInfo> mixins = null;
             boolean invalidRef = false;
             
@@ -559,15 +585,41 @@ public class MixinTransformer extends TreeTransformer {
         return targets;
     }
 
+    /**
+     * Revert the most recent {@link #reload} of a mixin class, used when the
+     * reloaded mixin could not be re-applied to its targets
+     *
+     * @param mixinClass Name of the mixin
+     * @return true if the reload was reverted
+     */
+    public boolean revertReload(String mixinClass) {
+        boolean reverted = false;
+        for (MixinConfig config : this.configs) {
+            reverted |= config.revertMixin(mixinClass);
+        }
+        return reverted;
+    }
+
     private void select(MixinEnvironment environment) {
         this.verboseLoggingLevel = (environment.getOption(Option.DEBUG_VERBOSE)) ? Level.INFO : Level.DEBUG;
         this.logger.log(this.verboseLoggingLevel, "Preparing mixins for {}", environment);
         long startTime = System.currentTimeMillis();
         
-        this.selectConfigs(environment);
-        this.selectModules(environment);
-        int totalMixins = this.prepareConfigs(environment);
-        this.currentEnvironment = environment;
+        if (environment.getOption(Option.DEBUG_PROFILER)) {
+            MixinEnvironment.getProfiler().setActive(true);
+        }
+        Section timer = MixinEnvironment.getProfiler().begin(Profiler.Phase.SELECT, null, null);
+        int totalMixins;
+        
+        try {
+            this.selectConfigs(environment);
+            this.selectModules(environment);
+            this.selectErrorHandlers();
+            totalMixins = this.prepareConfigs(environment);
+            this.currentEnvironment = environment;
+        } finally {
+            timer.end();
+        }
         
         double elapsedTime = (System.currentTimeMillis() - startTime) * 0.001D;
         if (elapsedTime > 0.25D) {
@@ -609,6 +661,11 @@ public class MixinTransformer extends TreeTransformer {
     private void selectModules(MixinEnvironment environment) {
         this.modules.clear();
         
+        // Inline accessor calls before any verification takes place
+        if (environment.getOption(Option.INLINE_ACCESSORS)) {
+            this.modules.add(new MixinTransformerModuleAccessorInliner());
+        }
+        
         // Run CheckClassAdapter on the mixin bytecode if debug option is enabled 
         if (environment.getOption(Option.DEBUG_VERIFY)) {
             this.modules.add(new MixinTransformerModuleCheckClass());
@@ -618,6 +675,59 @@ public class MixinTransformer extends TreeTransformer {
         if (environment.getOption(Option.CHECK_IMPLEMENTS)) {
             this.modules.add(new MixinTransformerModuleInterfaceChecker());
         }
+        
+        // Measure target method sizes against the JIT limits if option is enabled
+        if (environment.getOption(Option.CHECK_METHOD_SIZE)) {
+            this.modules.add(new MixinTransformerModuleMethodSize());
+        }
+    }
+
+    /**
+     * Resolve and instance all registered error handler classes. Handler
+     * instances are cached until the next environment selection so that
+     * repeated errors do not incur the cost of reflection each time.
+     */
+    private void selectErrorHandlers() {
+        Builder<IMixinErrorHandler> handlers = ImmutableList.<IMixinErrorHandler>builder();
+        
+        for (String handlerClassName : Mixins.getErrorHandlerClasses()) {
+            IMixinErrorHandler handler = this.findErrorHandler(handlerClassName);
+            if (handler == null) {
+                handler = this.createErrorHandler(handlerClassName);
+            }
+            if (handler != null) {
+                handlers.add(handler);
+            }
+        }
+        
+        this.errorHandlers = handlers.build();
+    }
+
+    private IMixinErrorHandler findErrorHandler(String handlerClassName) {
+        for (IMixinErrorHandler handler : this.errorHandlers) {
+            if (handler.getClass().getName().equals(handlerClassName)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    private IMixinErrorHandler createErrorHandler(String handlerClassName) {
+        if (this.failedErrorHandlers.contains(handlerClassName)) {
+            return null;
+        }
+        
+        try {
+            this.logger.info("Instancing error handler class {}", handlerClassName);
+            Class<?> handlerClass = Class.forName(handlerClassName, true, Launch.classLoader);
+            return (IMixinErrorHandler)handlerClass.newInstance();
+        } catch (Throwable th) {
+            this.failedErrorHandlers.add(handlerClassName);
+            this.logger.error("Error instancing error handler class {}, the handler will be skipped. {}: {}", handlerClassName,
+                    th.getClass().getSimpleName(), th.getMessage());
+        }
+        
+        return null;
     }
 
     /**
@@ -628,6 +738,7 @@ public class MixinTransformer extends TreeTransformer {
      */
     private int prepareConfigs(MixinEnvironment environment) {
         int totalMixins = 0;
+        int totalPending = 0;
         
         for (MixinConfig config : this.pendingConfigs) {
             try {
@@ -667,13 +778,83 @@ public class MixinTransformer extends TreeTransformer {
             }
         }
         
+        for (MixinConfig config : this.pendingConfigs) {
+            totalPending += config.getPendingMixinCount();
+        }
+        
         this.configs.addAll(this.pendingConfigs);
         Collections.sort(this.configs);
         this.pendingConfigs.clear();
         
+        if (totalPending > 0) {
+            this.logger.log(this.verboseLoggingLevel, "Deferred preparation of {} mixins until their targets are loaded", totalPending);
+        }
+        
         return totalMixins;
     }
 
+    /**
+     * Prepare any mixins which were scanned but not yet prepared for the
+     * specified class. If the class is the target of pending mixins, pending
+     * mixins targetting its superclasses are prepared as well so that the
+     * class hierarchy seen during application is the same as it would be if
+     * all mixins were prepared eagerly.
+     * 
+     * @param transformedName Name of the class being transformed
+     * @param environment Current environment
+     */
+    private void preparePendingMixins(String transformedName, MixinEnvironment environment) {
+        boolean pending = false;
+        for (MixinConfig config : this.configs) {
+            if (config.hasPendingMixinsFor(transformedName)) {
+                pending = true;
+                if (config.packageMatch(transformedName)) {
+                    // Class is a pending mixin, not a target 
+                    this.preparePendingMixins(config, transformedName, environment);
+                    return;
+                }
+            }
+        }
+        
+        if (!pending) {
+            return;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        int totalMixins = 0;
+        
+        for (MixinConfig config : this.configs) {
+            totalMixins += this.preparePendingMixins(config, transformedName, environment);
+        }
+        
+        ClassInfo targetInfo = ClassInfo.forName(transformedName);
+        for (ClassInfo superClass = targetInfo != null ? targetInfo.getSuperClass() : null; superClass != null;
+                superClass = superClass.getSuperClass()) {
+            for (MixinConfig config : this.configs) {
+                totalMixins += this.preparePendingMixins(config, superClass.getClassName(), environment);
+            }
+        }
+        
+        this.logger.log(this.verboseLoggingLevel, "Prepared {} pending mixins for {} in {} ms", totalMixins, transformedName,
+                System.currentTimeMillis() - startTime);
+    }
+
+    private int preparePendingMixins(MixinConfig config, String className, MixinEnvironment environment) {
+        if (!config.hasPendingMixinsFor(className)) {
+            return 0;
+        }
+        
+        try {
+            return config.preparePendingMixins(className, this.hotSwapper);
+        } catch (InvalidMixinException ex) {
+            this.handleMixinPrepareError(config, ex, environment);
+        } catch (Exception ex) {
+            this.logger.error("Error encountered whilst preparing pending mixins in config '" + config.getName() + "': " + ex.getMessage(), ex);
+        }
+        
+        return 0;
+    }
+
     /**
      * Pass a class through a specific config, used to access classes within a
      * mixin package through a pinhole
@@ -717,8 +898,13 @@ public class MixinTransformer extends TreeTransformer {
      * @param context Target class context
      */
     private void preApply(TargetClassContext context) {
-        for (IMixinTransformerModule module : this.modules) {
-            module.preApply(context);
+        Section timer = MixinEnvironment.getProfiler().begin(Profiler.Phase.PRE_APPLY, null, context);
+        try {
+            for (IMixinTransformerModule module : this.modules) {
+                module.preApply(context);
+            }
+        } finally {
+            timer.end();
         }
     }
 
@@ -737,8 +923,13 @@ public class MixinTransformer extends TreeTransformer {
      * @param context Target class context
      */
     private void postApply(TargetClassContext context) {
-        for (IMixinTransformerModule module : this.modules) {
-            module.postApply(context);
+        Section timer = MixinEnvironment.getProfiler().begin(Profiler.Phase.POST_APPLY, null, context);
+        try {
+            for (IMixinTransformerModule module : this.modules) {
+                module.postApply(context);
+            }
+        } finally {
+            timer.end();
         }
     }
 
@@ -782,8 +973,11 @@ public class MixinTransformer extends TreeTransformer {
                 .trace(action.logLevel);
         }
     
-        for (IMixinErrorHandler handler : this.getErrorHandlers(mixin.getPhase())) {
+        for (IMixinErrorHandler handler : this.getErrorHandlers()) {
+            long startTime = System.nanoTime();
             ErrorAction newAction = errorPhase.onError(handler, context, ex, mixin, action);
+            this.logger.log(this.verboseLoggingLevel, "Error handler {} returned {} in {} ns", handler.getClass().getName(), newAction,
+                    System.nanoTime() - startTime);
             if (newAction != null) {
                 action = newAction;
             }
@@ -798,23 +992,13 @@ public class MixinTransformer extends TreeTransformer {
         }
     }
 
-    private List<IMixinErrorHandler> getErrorHandlers(Phase phase) {
-        List<IMixinErrorHandler> handlers = new ArrayList<IMixinErrorHandler>();
-        
-        for (String handlerClassName : Mixins.getErrorHandlerClasses()) {
-            try {
-                this.logger.info("Instancing error handler class {}", handlerClassName);
-                Class<?> handlerClass = Class.forName(handlerClassName, true, Launch.classLoader);
-                IMixinErrorHandler handler = (IMixinErrorHandler)handlerClass.newInstance();
-                if (handler != null) {
-                    handlers.add(handler);
-                }
-            } catch (Throwable th) {
-                // skip bad handlers
-            }
+    private List<IMixinErrorHandler> getErrorHandlers() {
+        // Handlers registered since the environment was selected
+        if (this.errorHandlers.size() + this.failedErrorHandlers.size() < Mixins.getErrorHandlerClasses().size()) {
+            this.selectErrorHandlers();
         }
         
-        return handlers;
+        return this.errorHandlers;
     }
 
     private String prepareFilter(String filter) {
@@ -832,17 +1016,20 @@ public class MixinTransformer extends TreeTransformer {
     
     private byte[] writeClass(String transformedName, ClassNode targetClass, boolean forceExport) {
         // Collapse tree to bytes
-        byte[] bytes = this.writeClass(targetClass);
+        Section timer = MixinEnvironment.getProfiler().begin(Profiler.Phase.WRITE_CLASS, null, transformedName);
+        byte[] bytes;
+        try {
+            bytes = this.writeClass(targetClass);
+        } finally {
+            timer.end();
+        }
         
         // Export transformed class for debugging purposes
         MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
         if (forceExport || environment.getOption(Option.DEBUG_EXPORT)) {
             String filter = environment.getOptionValue(Option.DEBUG_EXPORT_FILTER);
             if (forceExport || filter == null || this.applyFilter(filter, transformedName)) {
-                File outputFile = this.dumpClass(transformedName.replace('.', '/'), bytes);
-                if (this.decompiler != null) {
-                    this.decompiler.decompile(outputFile);
-                }
+                this.exporter.export(transformedName.replace('.', '/'), bytes, true);
             }
         }
         
@@ -851,17 +1038,7 @@ public class MixinTransformer extends TreeTransformer {
 
     private void dumpClassOnFailure(String className, byte[] bytes, MixinEnvironment env) {
         if (env.getOption(Option.DUMP_TARGET_ON_FAILURE)) {
-            this.dumpClass(className.replace('.', '/') + ".target", bytes);
-        }
-    }
-
-    private File dumpClass(String fileName, byte[] bytes) {
-        File outputFile = new File(this.classExportDir, fileName + ".class");
-        try {
-            FileUtils.writeByteArrayToFile(outputFile, bytes);
-        } catch (IOException ex) {
-            // don't care
+            this.exporter.export(className.replace('.', '/') + ".target", bytes, false);
         }
-        return outputFile;
     }
 }
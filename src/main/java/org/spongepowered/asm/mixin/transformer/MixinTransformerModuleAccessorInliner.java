@@ -0,0 +1,325 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spongepowered.asm.lib.Opcodes;
+import org.spongepowered.asm.lib.Type;
+import org.spongepowered.asm.lib.tree.AbstractInsnNode;
+import org.spongepowered.asm.lib.tree.AnnotationNode;
+import org.spongepowered.asm.lib.tree.ClassNode;
+import org.spongepowered.asm.lib.tree.FieldInsnNode;
+import org.spongepowered.asm.lib.tree.FieldNode;
+import org.spongepowered.asm.lib.tree.InsnList;
+import org.spongepowered.asm.lib.tree.MethodInsnNode;
+import org.spongepowered.asm.lib.tree.MethodNode;
+import org.spongepowered.asm.lib.tree.TypeInsnNode;
+import org.spongepowered.asm.lib.tree.VarInsnNode;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+import org.spongepowered.asm.mixin.transformer.meta.MixinMerged;
+import org.spongepowered.asm.util.ASMHelper;
+
+/**
+ * Mixin transformer module which rewrites calls to accessor and invoker
+ * methods so that they access the target member directly. Accessors are
+ * recorded as their target classes are processed, calls to known accessors in
+ * classes processed by mixin are then replaced with a <tt>CHECKCAST</tt> to
+ * the target class followed by the field access or invocation performed by the
+ * generated accessor, provided that the target member is accessible from the
+ * calling class. Calls in classes which are processed before the accessor's
+ * target are left unchanged.
+ * 
+ * <p>Accessor mixins which declare more than one target are never inlined
+ * since the receiver type cannot be determined from the call site.</p>
+ */
+public class MixinTransformerModuleAccessorInliner implements IMixinTransformerModule {
+    
+    /**
+     * Member accessed by an accessor method
+     */
+    static final class AccessorTarget {
+        
+        /**
+         * Target class 
+         */
+        final String owner;
+        
+        /**
+         * Access flags of the target class
+         */
+        final int ownerAccess;
+
+        /**
+         * Field or method insn from the generated accessor
+         */
+        final AbstractInsnNode insn;
+        
+        /**
+         * Access flags of the target member
+         */
+        final int access;
+
+        AccessorTarget(String owner, int ownerAccess, AbstractInsnNode insn, int access) {
+            this.owner = owner;
+            this.ownerAccess = ownerAccess;
+            this.insn = insn;
+            this.access = access;
+        }
+        
+        boolean isStatic() {
+            int opcode = this.insn.getOpcode();
+            return opcode == Opcodes.GETSTATIC || opcode == Opcodes.PUTSTATIC || opcode == Opcodes.INVOKESTATIC;
+        }
+        
+        boolean isAccessibleFrom(String caller) {
+            if (caller.equals(this.owner)) {
+                return true;
+            }
+            
+            if ((this.access & Opcodes.ACC_PRIVATE) != 0 || (this.insn.getOpcode() == Opcodes.PUTFIELD && (this.access & Opcodes.ACC_FINAL) != 0)) {
+                return false;
+            }
+            
+            boolean samePackage = MixinTransformerModuleAccessorInliner.getPackage(caller).equals(
+                    MixinTransformerModuleAccessorInliner.getPackage(this.owner));
+            if ((this.ownerAccess & Opcodes.ACC_PUBLIC) == 0 && !samePackage) {
+                return false;
+            }
+            
+            return (this.access & Opcodes.ACC_PUBLIC) != 0 || samePackage;
+        }
+        
+    }
+    
+    private static final Logger logger = LogManager.getLogger("mixin");
+    
+    /**
+     * Marker for accessor methods which resolve to more than one target 
+     */
+    private static final AccessorTarget AMBIGUOUS = new AccessorTarget("", 0, null, 0);
+
+    /**
+     * Known accessors, keyed by accessor interface, name and descriptor 
+     */
+    private static final Map<String, AccessorTarget> accessors = new ConcurrentHashMap<String, AccessorTarget>();
+    
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.transformer.IMixinTransformerModule
+     *     #preApply(org.spongepowered.asm.mixin.transformer.TargetClassContext)
+     */
+    @Override
+    public void preApply(TargetClassContext context) {
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.transformer.IMixinTransformerModule
+     *    #postApply(org.spongepowered.asm.mixin.transformer.TargetClassContext)
+     */
+    @Override
+    public void postApply(TargetClassContext context) {
+        ClassNode classNode = context.getClassNode();
+        
+        for (MethodNode method : classNode.methods) {
+            this.register(context, classNode, method);
+        }
+        
+        int inlined = 0;
+        for (MethodNode method : classNode.methods) {
+            inlined += this.inline(classNode, method);
+        }
+        
+        if (inlined > 0) {
+            MixinTransformerModuleAccessorInliner.logger.debug("Inlined {} accessor call(s) in {}", inlined, context);
+        }
+    }
+
+    /**
+     * Record the supplied method if it is an accessor generated by an accessor
+     * mixin
+     */
+    private void register(TargetClassContext context, ClassNode classNode, MethodNode method) {
+        if (ASMHelper.getVisibleAnnotation(method, Accessor.class) == null && ASMHelper.getVisibleAnnotation(method, Invoker.class) == null) {
+            return;
+        }
+        
+        AnnotationNode merged = ASMHelper.getVisibleAnnotation(method, MixinMerged.class);
+        String mixinName = merged != null ? ASMHelper.<String>getAnnotationValue(merged, "mixin") : null;
+        if (mixinName == null) {
+            return;
+        }
+        
+        AbstractInsnNode access = MixinTransformerModuleAccessorInliner.getAccessInsn(classNode, method);
+        if (access == null) {
+            return;
+        }
+        
+        int memberAccess = MixinTransformerModuleAccessorInliner.getMemberAccess(classNode, access);
+        if (memberAccess < 0) {
+            return;
+        }
+        
+        MixinInfo mixin = MixinTransformerModuleAccessorInliner.findMixin(context, mixinName);
+        if (mixin == null) {
+            return;
+        }
+        
+        String key = mixinName.replace('.', '/') + "." + method.name + method.desc;
+        if (mixin.getTargetClasses().size() > 1) {
+            MixinTransformerModuleAccessorInliner.accessors.put(key, MixinTransformerModuleAccessorInliner.AMBIGUOUS);
+            return;
+        }
+        
+        AccessorTarget target = new AccessorTarget(classNode.name, classNode.access, access, memberAccess);
+        AccessorTarget existing = MixinTransformerModuleAccessorInliner.accessors.get(key);
+        if (existing != null && !existing.owner.equals(classNode.name)) {
+            target = MixinTransformerModuleAccessorInliner.AMBIGUOUS;
+        }
+        MixinTransformerModuleAccessorInliner.accessors.put(key, target);
+    }
+
+    /**
+     * Find the mixin with the specified class name among the mixins applied to
+     * the target class
+     */
+    private static MixinInfo findMixin(TargetClassContext context, String mixinName) {
+        for (MixinInfo mixin : context.getMixins()) {
+            if (mixin.getClassName().equals(mixinName)) {
+                return mixin;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rewrite calls to known accessors in the supplied method
+     * 
+     * @return number of calls which were rewritten
+     */
+    private int inline(ClassNode classNode, MethodNode method) {
+        if (MixinTransformerModuleAccessorInliner.accessors.isEmpty()) {
+            return 0;
+        }
+        
+        int inlined = 0;
+        for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            if (!(insn instanceof MethodInsnNode)) {
+                continue;
+            }
+            
+            MethodInsnNode call = (MethodInsnNode)insn;
+            if (call.getOpcode() != Opcodes.INVOKEINTERFACE && (call.getOpcode() != Opcodes.INVOKESTATIC || !call.itf)) {
+                continue;
+            }
+            
+            AccessorTarget target = MixinTransformerModuleAccessorInliner.accessors.get(call.owner + "." + call.name + call.desc);
+            if (target == null || target == MixinTransformerModuleAccessorInliner.AMBIGUOUS || !target.isAccessibleFrom(classNode.name)
+                    || target.isStatic() != (call.getOpcode() == Opcodes.INVOKESTATIC)) {
+                continue;
+            }
+            
+            InsnList insns = new InsnList();
+            if (!target.isStatic()) {
+                // Spill the args so that the receiver can be cast to the target type
+                Type[] args = Type.getArgumentTypes(call.desc);
+                int argsSize = ASMHelper.getArgsSize(args);
+                int local = method.maxLocals + argsSize;
+                for (int arg = args.length - 1; arg >= 0; arg--) {
+                    local -= args[arg].getSize();
+                    insns.add(new VarInsnNode(args[arg].getOpcode(Opcodes.ISTORE), local));
+                }
+                insns.add(new TypeInsnNode(Opcodes.CHECKCAST, target.owner));
+                ASMHelper.loadArgs(args, insns, method.maxLocals);
+                method.maxLocals += argsSize;
+            }
+            insns.add(target.insn.clone(null));
+            
+            method.instructions.insertBefore(call, insns);
+            iter.remove();
+            inlined++;
+        }
+        
+        return inlined;
+    }
+
+    /**
+     * Get the single field access or invocation of the target member in the
+     * body of a generated accessor
+     */
+    private static AbstractInsnNode getAccessInsn(ClassNode classNode, MethodNode method) {
+        AbstractInsnNode access = null;
+        for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            if (insn instanceof FieldInsnNode || insn instanceof MethodInsnNode) {
+                if (access != null) {
+                    return null;
+                }
+                access = insn;
+            }
+        }
+        
+        if (access instanceof FieldInsnNode && ((FieldInsnNode)access).owner.equals(classNode.name)) {
+            return access;
+        } else if (access instanceof MethodInsnNode && ((MethodInsnNode)access).owner.equals(classNode.name)) {
+            return access;
+        }
+        return null;
+    }
+    
+    /**
+     * Get the access flags of the member referenced by the supplied insn, or
+     * -1 if the member could not be found
+     */
+    private static int getMemberAccess(ClassNode classNode, AbstractInsnNode insn) {
+        if (insn instanceof FieldInsnNode) {
+            FieldInsnNode fieldInsn = (FieldInsnNode)insn;
+            for (FieldNode field : classNode.fields) {
+                if (field.name.equals(fieldInsn.name) && field.desc.equals(fieldInsn.desc)) {
+                    return field.access;
+                }
+            }
+        } else {
+            MethodInsnNode methodInsn = (MethodInsnNode)insn;
+            for (MethodNode method : classNode.methods) {
+                if (method.name.equals(methodInsn.name) && method.desc.equals(methodInsn.desc)) {
+                    return method.access;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String getPackage(String className) {
+        int pos = className.lastIndexOf('/');
+        return pos > -1 ? className.substring(0, pos) : "";
+    }
+    
+}
@@ -0,0 +1,372 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spongepowered.asm.lib.Opcodes;
+import org.spongepowered.asm.lib.Type;
+import org.spongepowered.asm.lib.tree.AbstractInsnNode;
+import org.spongepowered.asm.lib.tree.ClassNode;
+import org.spongepowered.asm.lib.tree.IincInsnNode;
+import org.spongepowered.asm.lib.tree.InsnList;
+import org.spongepowered.asm.lib.tree.InsnNode;
+import org.spongepowered.asm.lib.tree.LdcInsnNode;
+import org.spongepowered.asm.lib.tree.LookupSwitchInsnNode;
+import org.spongepowered.asm.lib.tree.MethodInsnNode;
+import org.spongepowered.asm.lib.tree.MethodNode;
+import org.spongepowered.asm.lib.tree.TableSwitchInsnNode;
+import org.spongepowered.asm.lib.tree.TypeInsnNode;
+import org.spongepowered.asm.lib.tree.VarInsnNode;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.transformer.meta.MixinMerged;
+import org.spongepowered.asm.util.ASMHelper;
+import org.spongepowered.asm.util.Constants;
+
+/**
+ * Mixin transformer module which measures the bytecode size of each method in
+ * the target class before and after mixins are applied, and warns when a
+ * method grows past the size limits used by the HotSpot JIT. Methods larger
+ * than <tt>FreqInlineSize</tt> are not inlined into their callers even when
+ * hot, and methods larger than <tt>HugeMethodLimit</tt> are not compiled at
+ * all. Only methods which existed in the target class before application are
+ * checked, methods added by mixins are not reported.
+ * 
+ * <p>If {@link Option#CHECK_METHOD_SIZE_OUTLINE} is enabled, non-cancellable
+ * callback invocations in methods which crossed a limit are moved into
+ * synthetic helper methods, each of which constructs the callback info and
+ * invokes the handler. Sizes are estimated from the instruction list and may
+ * differ slightly from the final bytecode, for example where a constant
+ * requires a wide <tt>LDC</tt>.</p>
+ */
+public class MixinTransformerModuleMethodSize implements IMixinTransformerModule {
+    
+    private static final Logger logger = LogManager.getLogger("mixin");
+    
+    /**
+     * Default value of <tt>FreqInlineSize</tt> on x86 platforms 
+     */
+    public static final int FREQ_INLINE_SIZE = 325;
+    
+    /**
+     * Value of <tt>HugeMethodLimit</tt>
+     */
+    public static final int HUGE_METHOD_LIMIT = 8000;
+    
+    private static final String CALLBACK_INFO = CallbackInfo.getCallInfoClassName(Type.VOID_TYPE);
+    
+    private static final String CALLBACK_INFO_RETURNABLE = CallbackInfo.getCallInfoClassName(Type.INT_TYPE);
+
+    /**
+     * Method sizes recorded before mixins were applied, keyed by class name
+     */
+    private final Map<String, Map<String, Integer>> sizes = new ConcurrentHashMap<String, Map<String, Integer>>();
+    
+    /**
+     * True to outline callback invocations in methods which crossed a limit
+     */
+    private final boolean outline;
+    
+    public MixinTransformerModuleMethodSize() {
+        this.outline = MixinEnvironment.getCurrentEnvironment().getOption(Option.CHECK_METHOD_SIZE_OUTLINE);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.transformer.IMixinTransformerModule
+     *     #preApply(org.spongepowered.asm.mixin.transformer.TargetClassContext)
+     */
+    @Override
+    public void preApply(TargetClassContext context) {
+        Map<String, Integer> sizes = new HashMap<String, Integer>();
+        for (MethodNode method : context.getClassNode().methods) {
+            sizes.put(method.name + method.desc, Integer.valueOf(MixinTransformerModuleMethodSize.getCodeSize(method)));
+        }
+        this.sizes.put(context.getClassNode().name, sizes);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.transformer.IMixinTransformerModule
+     *    #postApply(org.spongepowered.asm.mixin.transformer.TargetClassContext)
+     */
+    @Override
+    public void postApply(TargetClassContext context) {
+        Map<String, Integer> sizes = this.sizes.remove(context.getClassNode().name);
+        if (sizes == null) {
+            return;
+        }
+        
+        ClassNode classNode = context.getClassNode();
+        Map<String, MethodNode> helpers = new HashMap<String, MethodNode>();
+        for (MethodNode method : classNode.methods.toArray(new MethodNode[classNode.methods.size()])) {
+            Integer before = sizes.get(method.name + method.desc);
+            if (before == null) {
+                // Merged mixin methods and injector handlers are not target
+                // methods which grew, so there is nothing to report
+                continue;
+            }
+            
+            int oldSize = before.intValue();
+            int newSize = MixinTransformerModuleMethodSize.getCodeSize(method);
+            if (!MixinTransformerModuleMethodSize.crossed(oldSize, newSize)) {
+                continue;
+            }
+            
+            if (this.outline && (classNode.access & Opcodes.ACC_INTERFACE) == 0 && this.outline(context, method, helpers) > 0) {
+                int outlinedSize = MixinTransformerModuleMethodSize.getCodeSize(method);
+                MixinTransformerModuleMethodSize.logger.info("Outlined callbacks in {}{} in {}, reduced size from {} to {} bytes", method.name,
+                        method.desc, context, newSize, outlinedSize);
+                newSize = outlinedSize;
+            }
+            
+            if (oldSize <= MixinTransformerModuleMethodSize.HUGE_METHOD_LIMIT && newSize > MixinTransformerModuleMethodSize.HUGE_METHOD_LIMIT) {
+                MixinTransformerModuleMethodSize.logger.warn("{}{} in {} grew from {} to {} bytes, exceeding HugeMethodLimit ({} bytes). The method "
+                        + "will not be JIT compiled", method.name, method.desc, context, oldSize, newSize,
+                        MixinTransformerModuleMethodSize.HUGE_METHOD_LIMIT);
+            } else if (oldSize <= MixinTransformerModuleMethodSize.FREQ_INLINE_SIZE && newSize > MixinTransformerModuleMethodSize.FREQ_INLINE_SIZE) {
+                MixinTransformerModuleMethodSize.logger.warn("{}{} in {} grew from {} to {} bytes, exceeding FreqInlineSize ({} bytes). The method "
+                        + "will not be inlined into its callers", method.name, method.desc, context, oldSize, newSize,
+                        MixinTransformerModuleMethodSize.FREQ_INLINE_SIZE);
+            }
+        }
+    }
+    
+    private static boolean crossed(int oldSize, int newSize) {
+        return (oldSize <= MixinTransformerModuleMethodSize.HUGE_METHOD_LIMIT && newSize > MixinTransformerModuleMethodSize.HUGE_METHOD_LIMIT)
+                || (oldSize <= MixinTransformerModuleMethodSize.FREQ_INLINE_SIZE && newSize > MixinTransformerModuleMethodSize.FREQ_INLINE_SIZE);
+    }
+    
+    /**
+     * Replace non-cancellable callback invocations in the specified method with
+     * calls to synthetic helper methods. An invocation is a contiguous
+     * sequence which constructs the callback info and immediately passes it as
+     * the last argument to a merged handler method.
+     * 
+     * @param context target class context
+     * @param method method to outline callbacks in
+     * @param helpers helpers already generated in this class
+     * @return number of outlined invocations
+     */
+    private int outline(TargetClassContext context, MethodNode method, Map<String, MethodNode> helpers) {
+        List<TypeInsnNode> candidates = new ArrayList<TypeInsnNode>();
+        for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            if (insn.getOpcode() == Opcodes.NEW && MixinTransformerModuleMethodSize.isCallbackInfo(((TypeInsnNode)insn).desc)) {
+                candidates.add((TypeInsnNode)insn);
+            }
+        }
+        
+        int outlined = 0;
+        for (TypeInsnNode insn : candidates) {
+            String type = insn.desc;
+            AbstractInsnNode dup = insn.getNext();
+            AbstractInsnNode id = dup != null ? dup.getNext() : null;
+            AbstractInsnNode cancellable = id != null ? id.getNext() : null;
+            AbstractInsnNode next = cancellable != null ? cancellable.getNext() : null;
+            if (dup == null || dup.getOpcode() != Opcodes.DUP || !(id instanceof LdcInsnNode) || !(((LdcInsnNode)id).cst instanceof String)
+                    || cancellable == null || (cancellable.getOpcode() != Opcodes.ICONST_0 && cancellable.getOpcode() != Opcodes.ICONST_1)) {
+                continue;
+            }
+            
+            VarInsnNode returnValue = null;
+            if (next instanceof VarInsnNode && next.getOpcode() >= Opcodes.ILOAD && next.getOpcode() <= Opcodes.ALOAD) {
+                returnValue = (VarInsnNode)next;
+                next = next.getNext();
+            }
+            
+            if (!(next instanceof MethodInsnNode) || !(next.getNext() instanceof MethodInsnNode)) {
+                continue;
+            }
+            
+            MethodInsnNode ctor = (MethodInsnNode)next;
+            MethodInsnNode call = (MethodInsnNode)next.getNext();
+            if (ctor.getOpcode() != Opcodes.INVOKESPECIAL || !Constants.CTOR.equals(ctor.name) || !type.equals(ctor.owner)
+                    || (returnValue != null) != (Type.getArgumentTypes(ctor.desc).length > 2) || !this.isHandlerCall(context, call, type)) {
+                continue;
+            }
+            
+            MethodNode helper = this.getHelper(context, helpers, (LdcInsnNode)id, cancellable.getOpcode(), ctor, call);
+            InsnList insns = new InsnList();
+            if (returnValue != null) {
+                insns.add(new VarInsnNode(returnValue.getOpcode(), returnValue.var));
+            }
+            insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, context.getClassNode().name, helper.name, helper.desc, false));
+            
+            method.instructions.insert(call, insns);
+            for (AbstractInsnNode remove = insn, last = call.getNext(); remove != last;) {
+                AbstractInsnNode following = remove.getNext();
+                method.instructions.remove(remove);
+                remove = following;
+            }
+            outlined++;
+        }
+        return outlined;
+    }
+
+    private static boolean isCallbackInfo(String type) {
+        return MixinTransformerModuleMethodSize.CALLBACK_INFO.equals(type) || MixinTransformerModuleMethodSize.CALLBACK_INFO_RETURNABLE.equals(type);
+    }
+
+    private boolean isHandlerCall(TargetClassContext context, MethodInsnNode call, String callbackInfoClass) {
+        if (!call.owner.equals(context.getClassNode().name) || call.getOpcode() == Opcodes.INVOKEINTERFACE) {
+            return false;
+        }
+        
+        Type[] args = Type.getArgumentTypes(call.desc);
+        if (args.length == 0 || !args[args.length - 1].getDescriptor().equals("L" + callbackInfoClass + ";")) {
+            return false;
+        }
+        
+        MethodNode handler = context.findMethod(call.name, call.desc);
+        return handler != null && ASMHelper.getVisibleAnnotation(handler, MixinMerged.class) != null;
+    }
+    
+    private MethodNode getHelper(TargetClassContext context, Map<String, MethodNode> helpers, LdcInsnNode id, int cancellable,
+            MethodInsnNode ctor, MethodInsnNode call) {
+        String key = String.format("%s%s:%d:%s:%s:%d", call.name, call.desc, call.getOpcode(), ctor.desc, id.cst, cancellable);
+        MethodNode helper = helpers.get(key);
+        if (helper != null) {
+            return helper;
+        }
+        
+        Type[] handlerArgs = Type.getArgumentTypes(call.desc);
+        Type[] ctorArgs = Type.getArgumentTypes(ctor.desc);
+        boolean hasReturnValue = ctorArgs.length > 2;
+        boolean isStatic = call.getOpcode() == Opcodes.INVOKESTATIC;
+        
+        StringBuilder desc = new StringBuilder("(");
+        if (!isStatic) {
+            desc.append('L').append(context.getClassNode().name).append(';');
+        }
+        for (int arg = 0; arg < handlerArgs.length - 1; arg++) {
+            desc.append(handlerArgs[arg].getDescriptor());
+        }
+        if (hasReturnValue) {
+            desc.append(ctorArgs[2].getDescriptor());
+        }
+        desc.append(')').append(Type.getReturnType(call.desc).getDescriptor());
+        
+        int index = 0;
+        while (context.findMethod(call.name + "$outline" + index, desc.toString()) != null) {
+            index++;
+        }
+        String name = call.name + "$outline" + index;
+        
+        helper = new MethodNode(Opcodes.ASM5, Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, name, desc.toString(), null, null);
+        Type[] helperArgs = Type.getArgumentTypes(helper.desc);
+        int argsSize = ASMHelper.getArgsSize(helperArgs);
+        helper.maxLocals = argsSize;
+        helper.maxStack = argsSize + 4;
+        
+        int returnValueVar = 0;
+        InsnList insns = helper.instructions;
+        for (int arg = 0, local = 0; arg < helperArgs.length; local += helperArgs[arg++].getSize()) {
+            if (hasReturnValue && arg == helperArgs.length - 1) {
+                returnValueVar = local;
+                break;
+            }
+            insns.add(new VarInsnNode(helperArgs[arg].getOpcode(Opcodes.ILOAD), local));
+        }
+        insns.add(new TypeInsnNode(Opcodes.NEW, ctor.owner));
+        insns.add(new InsnNode(Opcodes.DUP));
+        insns.add(new LdcInsnNode(id.cst));
+        insns.add(new InsnNode(cancellable));
+        if (hasReturnValue) {
+            insns.add(new VarInsnNode(ctorArgs[2].getOpcode(Opcodes.ILOAD), returnValueVar));
+        }
+        insns.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, ctor.owner, ctor.name, ctor.desc, false));
+        insns.add(new MethodInsnNode(call.getOpcode(), call.owner, call.name, call.desc, call.itf));
+        insns.add(new InsnNode(Type.getReturnType(call.desc).getOpcode(Opcodes.IRETURN)));
+        
+        context.addMethod(helper);
+        helpers.put(key, helper);
+        return helper;
+    }
+    
+    /**
+     * Estimate the size of the bytecode generated for the specified method
+     * 
+     * @param method method to measure
+     * @return estimated code size in bytes
+     */
+    static int getCodeSize(MethodNode method) {
+        int size = 0;
+        for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            int opcode = insn.getOpcode();
+            switch (insn.getType()) {
+                case AbstractInsnNode.INSN:
+                    size += 1;
+                    break;
+                case AbstractInsnNode.INT_INSN:
+                    size += opcode == Opcodes.SIPUSH ? 3 : 2;
+                    break;
+                case AbstractInsnNode.VAR_INSN:
+                    int var = ((VarInsnNode)insn).var;
+                    size += var < 4 && opcode != Opcodes.RET ? 1 : var < 256 ? 2 : 4;
+                    break;
+                case AbstractInsnNode.IINC_INSN:
+                    IincInsnNode iinc = (IincInsnNode)insn;
+                    size += iinc.var < 256 && iinc.incr >= Byte.MIN_VALUE && iinc.incr <= Byte.MAX_VALUE ? 3 : 6;
+                    break;
+                case AbstractInsnNode.LDC_INSN:
+                    Object cst = ((LdcInsnNode)insn).cst;
+                    size += cst instanceof Long || cst instanceof Double ? 3 : 2;
+                    break;
+                case AbstractInsnNode.METHOD_INSN:
+                case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+                    size += opcode == Opcodes.INVOKEINTERFACE || opcode == Opcodes.INVOKEDYNAMIC ? 5 : 3;
+                    break;
+                case AbstractInsnNode.TYPE_INSN:
+                case AbstractInsnNode.FIELD_INSN:
+                case AbstractInsnNode.JUMP_INSN:
+                    size += 3;
+                    break;
+                case AbstractInsnNode.MULTIANEWARRAY_INSN:
+                    size += 4;
+                    break;
+                case AbstractInsnNode.TABLESWITCH_INSN:
+                    size += 1 + (3 - (size % 4)) + 12 + 4 * ((TableSwitchInsnNode)insn).labels.size();
+                    break;
+                case AbstractInsnNode.LOOKUPSWITCH_INSN:
+                    size += 1 + (3 - (size % 4)) + 8 + 8 * ((LookupSwitchInsnNode)insn).labels.size();
+                    break;
+                default:
+                    // Labels, line numbers and frames do not contribute
+                    break;
+            }
+        }
+        return size;
+    }
+    
+}
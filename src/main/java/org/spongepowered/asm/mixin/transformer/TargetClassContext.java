@@ -82,6 +82,27 @@ class TargetClassContext {
      */
     private final Map<String, Target> targetMethods = new HashMap<String, Target>();
     
+    /**
+     * Index of target class methods by name and descriptor 
+     */
+    private final Map<String, MethodNode> methodIndex = new HashMap<String, MethodNode>();
+    
+    /**
+     * Index of target class fields by name and descriptor 
+     */
+    private final Map<String, FieldNode> fieldIndex = new HashMap<String, FieldNode>();
+    
+    /**
+     * Index of target class fields by name only 
+     */
+    private final Map<String, FieldNode> fieldNameIndex = new HashMap<String, FieldNode>();
+    
+    /**
+     * Number of entries in the method and field lists which have been indexed,
+     * members appended to the lists directly are indexed on the next lookup
+     */
+    private int indexedMethods, indexedFields;
+    
     /**
      * Unique method and field indices 
      */
@@ -190,10 +211,9 @@ class TargetClassContext {
             return null;
         }
         
-        for (MethodNode target : this.classNode.methods) {
-            if (target.name.equals(alias) && target.desc.equals(desc)) {
-                return target;
-            }
+        MethodNode target = this.findMethod(alias, desc);
+        if (target != null) {
+            return target;
         }
 
         return this.findAliasedMethod(aliases, desc);
@@ -212,15 +232,169 @@ class TargetClassContext {
             return null;
         }
         
-        for (FieldNode target : this.classNode.fields) {
-            if (target.name.equals(alias) && target.desc.equals(desc)) {
-                return target;
-            }
+        FieldNode target = this.findField(alias, desc);
+        if (target != null) {
+            return target;
         }
 
         return this.findAliasedField(aliases, desc);
     }
 
+    /**
+     * Finds a method in the target class by name and descriptor
+     * 
+     * @param name method name
+     * @param desc method descriptor
+     * @return Target method or null if not found
+     */
+    MethodNode findMethod(String name, String desc) {
+        this.updateMethodIndex();
+        MethodNode target = this.methodIndex.get(name + desc);
+        if (target != null && (!target.name.equals(name) || !target.desc.equals(desc))) {
+            // Member was renamed without notifying the index, so rebuild it
+            this.rebuildMethodIndex();
+            target = this.methodIndex.get(name + desc);
+        }
+        return target;
+    }
+
+    /**
+     * Finds a field in the target class by name and (optionally) descriptor
+     * 
+     * @param name field name
+     * @param desc field descriptor, or null to match the first field with
+     *      the specified name
+     * @return Target field or null if not found
+     */
+    FieldNode findField(String name, String desc) {
+        this.updateFieldIndex();
+        FieldNode target = desc != null ? this.fieldIndex.get(name + ":" + desc) : this.fieldNameIndex.get(name);
+        if (target != null && (!target.name.equals(name) || (desc != null && !target.desc.equals(desc)))) {
+            this.rebuildFieldIndex();
+            target = desc != null ? this.fieldIndex.get(name + ":" + desc) : this.fieldNameIndex.get(name);
+        }
+        return target;
+    }
+    
+    /**
+     * Add a method to the target class
+     * 
+     * @param method method to add
+     */
+    void addMethod(MethodNode method) {
+        this.updateMethodIndex();
+        this.classNode.methods.add(method);
+        this.indexMethod(method);
+        this.indexedMethods++;
+    }
+    
+    /**
+     * Remove a method from the target class
+     * 
+     * @param method method to remove
+     */
+    void removeMethod(MethodNode method) {
+        this.updateMethodIndex();
+        if (this.classNode.methods.remove(method)) {
+            this.unindexMethod(method);
+            this.indexedMethods--;
+        }
+    }
+    
+    /**
+     * Rename a method in the target class
+     * 
+     * @param method method to rename
+     * @param newName new name for the method
+     */
+    void renameMethod(MethodNode method, String newName) {
+        this.updateMethodIndex();
+        this.unindexMethod(method);
+        method.name = newName;
+        this.indexMethod(method);
+    }
+    
+    /**
+     * Add a field to the target class
+     * 
+     * @param field field to add
+     */
+    void addField(FieldNode field) {
+        this.updateFieldIndex();
+        this.classNode.fields.add(field);
+        this.indexField(field);
+        this.indexedFields++;
+    }
+    
+    private void updateMethodIndex() {
+        List<MethodNode> methods = this.classNode.methods;
+        if (methods.size() < this.indexedMethods) {
+            this.rebuildMethodIndex();
+            return;
+        }
+        
+        // Pick up any methods appended to the class directly
+        for (; this.indexedMethods < methods.size(); this.indexedMethods++) {
+            this.indexMethod(methods.get(this.indexedMethods));
+        }
+    }
+    
+    private void rebuildMethodIndex() {
+        this.methodIndex.clear();
+        this.indexedMethods = 0;
+        this.updateMethodIndex();
+    }
+    
+    private void indexMethod(MethodNode method) {
+        String key = method.name + method.desc;
+        if (!this.methodIndex.containsKey(key)) {
+            this.methodIndex.put(key, method);
+        }
+    }
+    
+    private void unindexMethod(MethodNode method) {
+        String key = method.name + method.desc;
+        if (this.methodIndex.get(key) == method) {
+            this.methodIndex.remove(key);
+            // Another method with the same signature may now be visible
+            for (MethodNode other : this.classNode.methods) {
+                if (other != method && other.name.equals(method.name) && other.desc.equals(method.desc)) {
+                    this.methodIndex.put(key, other);
+                    break;
+                }
+            }
+        }
+    }
+    
+    private void updateFieldIndex() {
+        List<FieldNode> fields = this.classNode.fields;
+        if (fields.size() < this.indexedFields) {
+            this.rebuildFieldIndex();
+            return;
+        }
+        
+        for (; this.indexedFields < fields.size(); this.indexedFields++) {
+            this.indexField(fields.get(this.indexedFields));
+        }
+    }
+    
+    private void rebuildFieldIndex() {
+        this.fieldIndex.clear();
+        this.fieldNameIndex.clear();
+        this.indexedFields = 0;
+        this.updateFieldIndex();
+    }
+    
+    private void indexField(FieldNode field) {
+        String key = field.name + ":" + field.desc;
+        if (!this.fieldIndex.containsKey(key)) {
+            this.fieldIndex.put(key, field);
+        }
+        if (!this.fieldNameIndex.containsKey(field.name)) {
+            this.fieldNameIndex.put(field.name, field);
+        }
+    }
+
     /**
      * Get a target method handle from the target class
      * 
@@ -228,7 +402,7 @@ class TargetClassContext {
      * @return new or existing target handle for the supplied method
      */
     public Target getTargetMethod(MethodNode method) {
-        if (!this.classNode.methods.contains(method)) {
+        if (this.findMethod(method.name, method.desc) != method && !this.classNode.methods.contains(method)) {
             throw new IllegalArgumentException("Invalid target method supplied to getTargetMethod()");
         }
         
@@ -85,10 +85,44 @@ abstract class TreeInfo {
      * @throws IOException if an error occurs whilst reading the specified class
      */
     protected static byte[] loadClass(String className, boolean runTransformers) throws ClassNotFoundException, IOException {
+        return TreeInfo.loadClass(className, null, runTransformers);
+    }
+
+    /**
+     * Loads class bytecode, using the supplied raw bytecode if it was already
+     * fetched using {@link #loadClassBytes}
+     * 
+     * @param className Name of the class to load
+     * @param classBytes Raw class bytecode, or null to fetch the bytecode
+     *      from the classpath
+     * @param runTransformers True to run the loaded bytecode through the
+     *      delegate transformer chain
+     * @return Transformed class bytecode for the specified class
+     * @throws ClassNotFoundException if the specified class could not be loaded
+     * @throws IOException if an error occurs whilst reading the specified class
+     */
+    protected static byte[] loadClass(String className, byte[] classBytes, boolean runTransformers) throws ClassNotFoundException, IOException {
         String transformedName = className.replace('/', '.');
         String name = MixinEnvironment.getCurrentEnvironment().unmap(transformedName);
-        byte[] classBytes = TreeInfo.getClassBytes(name, transformedName);
+        if (classBytes == null) {
+            classBytes = TreeInfo.getClassBytes(name, transformedName);
+        }
+        return TreeInfo.loadClass(name, transformedName, classBytes, runTransformers);
+    }
 
+    /**
+     * Completes loading of class bytecode which was previously fetched using
+     * {@link #loadClassBytes}
+     * 
+     * @param name Original class name
+     * @param transformedName Name of the class to load
+     * @param classBytes Raw class bytecode
+     * @param runTransformers True to run the loaded bytecode through the
+     *      delegate transformer chain
+     * @return Transformed class bytecode for the specified class
+     * @throws ClassNotFoundException if the specified class could not be loaded
+     */
+    protected static byte[] loadClass(String name, String transformedName, byte[] classBytes, boolean runTransformers) throws ClassNotFoundException {
         if (runTransformers) {
             classBytes = TreeInfo.applyTransformers(name, transformedName, classBytes);
         }
@@ -99,6 +133,20 @@ abstract class TreeInfo {
 
         return classBytes;
     }
+    
+    /**
+     * Fetches raw class bytecode from the classpath without running any
+     * transformers. Unlike {@link #loadClass} this method does not touch any
+     * shared mixin state and can safely be called from worker threads.
+     * 
+     * @param name Original class name, see {@link MixinEnvironment#unmap}
+     * @param transformedName Name of the class to load
+     * @return raw class bytecode or null if the class was not found
+     * @throws IOException if an error occurs whilst reading the specified class
+     */
+    protected static byte[] loadClassBytes(String name, String transformedName) throws IOException {
+        return TreeInfo.getClassBytes(name, transformedName);
+    }
 
     /**
      * @param name Original class name
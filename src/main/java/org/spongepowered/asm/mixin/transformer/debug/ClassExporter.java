@@ -0,0 +1,313 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer.debug;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes exported classes on a background thread so that disk latency does
+ * not land on the class-loading thread. Classes are either written to
+ * individual files in the output directory, in which case they are passed on
+ * to the decompiler (if any) once written, or coalesced into a single jar.
+ * Pending classes are flushed when the JVM shuts down, and any classes which
+ * could not be written are reported.
+ */
+public class ClassExporter implements Runnable {
+    
+    /**
+     * A class waiting to be written
+     */
+    static final class Entry {
+        
+        final String name;
+        
+        final byte[] bytes;
+        
+        final boolean decompile;
+        
+        Entry(String name, byte[] bytes, boolean decompile) {
+            this.name = name;
+            this.bytes = bytes;
+            this.decompile = decompile;
+        }
+        
+    }
+    
+    /**
+     * Marker entry which tells the writer thread to finish
+     */
+    private static final Entry END = new Entry(null, null, false);
+    
+    /**
+     * Maximum amount of bytecode which may be waiting to be written, classes
+     * exported beyond this limit are dropped
+     */
+    private static final long MAX_PENDING_BYTES = 64L * 1024 * 1024;
+    
+    /**
+     * Time to wait for pending classes to be written at shutdown
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    
+    /**
+     * Logger
+     */
+    private final Logger logger = LogManager.getLogger("mixin");
+    
+    /**
+     * Directory to write classes to
+     */
+    private final File outputDir;
+    
+    /**
+     * Archive to write classes to, null when writing to the directory
+     */
+    private final File archive;
+    
+    /**
+     * Decompiler to pass written classes to, can be null
+     */
+    private final IDecompiler decompiler;
+    
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<Entry>();
+    
+    private final AtomicLong pendingBytes = new AtomicLong();
+    
+    private final AtomicInteger written = new AtomicInteger();
+    
+    private final AtomicInteger dropped = new AtomicInteger();
+    
+    private final AtomicInteger failed = new AtomicInteger();
+    
+    /**
+     * Number of times each entry has been written to the archive, classes
+     * which are exported more than once (eg. by hot-swap) are written with a
+     * revision suffix
+     */
+    private final Map<String, Integer> revisions = new HashMap<String, Integer>();
+    
+    private ZipOutputStream zip;
+    
+    private Thread thread;
+    
+    private volatile boolean closed;
+
+    /**
+     * @param outputDir directory to write classes to, the archive (if used)
+     *      is created alongside this directory
+     * @param archive true to write all classes to a single jar
+     * @param decompiler decompiler to pass written classes to, can be null
+     */
+    public ClassExporter(File outputDir, boolean archive, IDecompiler decompiler) {
+        this.outputDir = outputDir;
+        this.archive = archive ? new File(outputDir.getParentFile(), outputDir.getName() + ".jar") : null;
+        this.decompiler = archive ? null : decompiler;
+        if (archive && decompiler != null) {
+            this.logger.info("Exported classes are written to {}, they will not be decompiled", this.archive);
+        }
+        if (this.archive != null && this.archive.isFile() && !this.archive.delete()) {
+            this.logger.warn("Could not delete previous class export archive {}", this.archive);
+        }
+    }
+    
+    /**
+     * Queue a class to be written
+     * 
+     * @param fileName class file name, without extension
+     * @param bytes class bytes
+     * @param decompile true to decompile the class once it is written
+     */
+    public void export(String fileName, byte[] bytes, boolean decompile) {
+        if (this.pendingBytes.addAndGet(bytes.length) > ClassExporter.MAX_PENDING_BYTES) {
+            this.pendingBytes.addAndGet(-bytes.length);
+            this.drop(fileName);
+            return;
+        }
+        
+        // Checked and queued under the same lock as close() so that no entry
+        // can be queued behind the END marker
+        synchronized (this) {
+            if (!this.closed) {
+                this.start();
+                this.queue.add(new Entry(fileName, bytes, decompile));
+                return;
+            }
+        }
+        
+        this.pendingBytes.addAndGet(-bytes.length);
+        this.drop(fileName);
+    }
+    
+    private void drop(String fileName) {
+        if (this.dropped.getAndIncrement() == 0) {
+            this.logger.warn("Class export writer cannot keep up, {} and further exported classes will be dropped", fileName);
+        }
+    }
+    
+    private synchronized void start() {
+        if (this.thread != null) {
+            return;
+        }
+        
+        this.thread = new Thread(this, "Mixin class export thread");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread("Mixin class export shutdown") {
+            @Override
+            public void run() {
+                ClassExporter.this.close();
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (Entry entry = this.queue.take(); entry != ClassExporter.END; entry = this.queue.take()) {
+                this.write(entry);
+                this.pendingBytes.addAndGet(-entry.bytes.length);
+            }
+        } catch (InterruptedException ex) {
+            // shutting down
+        } finally {
+            this.closeArchive();
+        }
+    }
+    
+    /**
+     * Stop accepting classes, wait for pending classes to be written and
+     * report the outcome
+     */
+    public void close() {
+        Thread thread = null;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            thread = this.thread;
+        }
+        
+        if (thread != null) {
+            this.queue.add(ClassExporter.END);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(ClassExporter.SHUTDOWN_TIMEOUT_SECONDS));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                this.logger.warn("Timed out waiting for {} exported classes to be written", this.queue.size());
+            }
+        }
+        
+        int dropped = this.dropped.get(), failed = this.failed.get();
+        if (dropped > 0 || failed > 0) {
+            this.logger.warn("Exported {} classes to {}, {} classes were dropped and {} could not be written", this.written.get(),
+                    this.archive != null ? this.archive : this.outputDir, dropped, failed);
+        }
+    }
+
+    private void write(Entry entry) {
+        try {
+            if (this.archive != null) {
+                this.writeArchiveEntry(entry);
+            } else {
+                File file = this.writeFile(entry);
+                if (entry.decompile && this.decompiler != null) {
+                    this.decompiler.decompile(file);
+                }
+            }
+            this.written.incrementAndGet();
+        } catch (IOException ex) {
+            if (this.failed.getAndIncrement() == 0) {
+                this.logger.warn("Error writing exported class {}: {} {}", entry.name, ex.getClass().getSimpleName(), ex.getMessage());
+            }
+        }
+    }
+
+    private File writeFile(Entry entry) throws IOException {
+        File file = new File(this.outputDir, entry.name + ".class");
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(entry.bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private void writeArchiveEntry(Entry entry) throws IOException {
+        if (this.zip == null) {
+            this.archive.getParentFile().mkdirs();
+            this.zip = new ZipOutputStream(new FileOutputStream(this.archive));
+        }
+        
+        Integer revision = this.revisions.get(entry.name);
+        this.revisions.put(entry.name, revision == null ? 1 : revision + 1);
+        String name = revision == null ? entry.name + ".class" : entry.name + "." + revision + ".class";
+        this.zip.putNextEntry(new ZipEntry(name));
+        this.zip.write(entry.bytes);
+        this.zip.closeEntry();
+    }
+
+    private void closeArchive() {
+        if (this.zip == null) {
+            return;
+        }
+        
+        try {
+            this.zip.close();
+        } catch (IOException ex) {
+            this.logger.warn("Error closing class export archive {}: {} {}", this.archive, ex.getClass().getSimpleName(), ex.getMessage());
+        }
+        this.zip = null;
+    }
+}
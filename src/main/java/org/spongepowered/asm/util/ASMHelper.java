@@ -277,7 +277,7 @@ public class ASMHelper {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setVisibleAnnotation(FieldNode field, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = ASMHelper.makeAnnotationNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = ASMHelper.makeAnnotationNode(AnnotationIndex.getDescriptor(annotationClass), value);
         field.visibleAnnotations = ASMHelper.addAnnotation(field.visibleAnnotations, node);
     }
     
@@ -290,7 +290,7 @@ public class ASMHelper {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setInvisibleAnnotation(FieldNode field, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = ASMHelper.makeAnnotationNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = ASMHelper.makeAnnotationNode(AnnotationIndex.getDescriptor(annotationClass), value);
         field.invisibleAnnotations = ASMHelper.addAnnotation(field.invisibleAnnotations, node);
     }
     
@@ -303,7 +303,7 @@ public class ASMHelper {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setVisibleAnnotation(MethodNode method, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = ASMHelper.makeAnnotationNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = ASMHelper.makeAnnotationNode(AnnotationIndex.getDescriptor(annotationClass), value);
         method.visibleAnnotations = ASMHelper.addAnnotation(method.visibleAnnotations, node);
     }
     
@@ -316,7 +316,7 @@ public class ASMHelper {
      * @param value Values (interleaved key/value pairs) to set
      */
     public static void setInvisibleAnnotation(MethodNode method, Class<? extends Annotation> annotationClass, Object... value) {
-        AnnotationNode node = ASMHelper.makeAnnotationNode(Type.getDescriptor(annotationClass), value);
+        AnnotationNode node = ASMHelper.makeAnnotationNode(AnnotationIndex.getDescriptor(annotationClass), value);
         method.invisibleAnnotations = ASMHelper.addAnnotation(method.invisibleAnnotations, node);
     }
 
@@ -359,7 +359,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getVisibleAnnotation(FieldNode field, Class<? extends Annotation> annotationClass) {
-        return ASMHelper.getAnnotation(field.visibleAnnotations, Type.getDescriptor(annotationClass));
+        return ASMHelper.getVisibleAnnotation(field, field.visibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
     }
 
     /**
@@ -371,7 +371,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getInvisibleAnnotation(FieldNode field, Class<? extends Annotation> annotationClass) {
-        return ASMHelper.getAnnotation(field.invisibleAnnotations, Type.getDescriptor(annotationClass));
+        return ASMHelper.getInvisibleAnnotation(field, field.invisibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
     }
 
     /**
@@ -383,7 +383,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getVisibleAnnotation(MethodNode method, Class<? extends Annotation> annotationClass) {
-        return ASMHelper.getAnnotation(method.visibleAnnotations, Type.getDescriptor(annotationClass));
+        return ASMHelper.getVisibleAnnotation(method, method.visibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
     }
 
     /**
@@ -395,7 +395,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getInvisibleAnnotation(MethodNode method, Class<? extends Annotation> annotationClass) {
-        return ASMHelper.getAnnotation(method.invisibleAnnotations, Type.getDescriptor(annotationClass));
+        return ASMHelper.getInvisibleAnnotation(method, method.invisibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
     }
 
     /**
@@ -407,7 +407,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getSingleVisibleAnnotation(MethodNode method, Class<? extends Annotation>... annotationClasses) {
-        return ASMHelper.getSingleAnnotation(method.visibleAnnotations, annotationClasses);
+        return ASMHelper.getSingleAnnotation(method, method.visibleAnnotations, true, annotationClasses);
     }
 
     /**
@@ -419,7 +419,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getSingleInvisibleAnnotation(MethodNode method, Class<? extends Annotation>... annotationClasses) {
-        return ASMHelper.getSingleAnnotation(method.invisibleAnnotations, annotationClasses);
+        return ASMHelper.getSingleAnnotation(method, method.invisibleAnnotations, false, annotationClasses);
     }
 
     /**
@@ -431,7 +431,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getVisibleAnnotation(ClassNode classNode, Class<? extends Annotation> annotationClass) {
-        return ASMHelper.getAnnotation(classNode.visibleAnnotations, Type.getDescriptor(annotationClass));
+        return ASMHelper.getAnnotation(classNode.visibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
     }
 
     /**
@@ -443,7 +443,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getInvisibleAnnotation(ClassNode classNode, Class<? extends Annotation> annotationClass) {
-        return ASMHelper.getAnnotation(classNode.invisibleAnnotations, Type.getDescriptor(annotationClass));
+        return ASMHelper.getAnnotation(classNode.invisibleAnnotations, AnnotationIndex.getDescriptor(annotationClass));
     }
 
     /**
@@ -456,7 +456,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getVisibleParameterAnnotation(MethodNode method, Class<? extends Annotation> annotationClass, int paramIndex) {
-        return ASMHelper.getParameterAnnotation(method.visibleParameterAnnotations, Type.getDescriptor(annotationClass), paramIndex);
+        return ASMHelper.getParameterAnnotation(method.visibleParameterAnnotations, AnnotationIndex.getDescriptor(annotationClass), paramIndex);
     }
 
     /**
@@ -469,7 +469,7 @@ public class ASMHelper {
      * @return the annotation, or null if not present
      */
     public static AnnotationNode getInvisibleParameterAnnotation(MethodNode method, Class<? extends Annotation> annotationClass, int paramIndex) {
-        return ASMHelper.getParameterAnnotation(method.invisibleParameterAnnotations, Type.getDescriptor(annotationClass), paramIndex);
+        return ASMHelper.getParameterAnnotation(method.invisibleParameterAnnotations, AnnotationIndex.getDescriptor(annotationClass), paramIndex);
     }
 
     /**
@@ -512,10 +512,31 @@ public class ASMHelper {
         return null;
     }
 
-    private static AnnotationNode getSingleAnnotation(List<AnnotationNode> annotations, Class<? extends Annotation>... annotationClasses) {
+    private static AnnotationNode getVisibleAnnotation(Object node, List<AnnotationNode> annotations, String annotationType) {
+        if (node instanceof AnnotationIndex.IAnnotated) {
+            return ((AnnotationIndex.IAnnotated)node).getAnnotationIndex().getVisible(annotations, annotationType);
+        }
+        return ASMHelper.getAnnotation(annotations, annotationType);
+    }
+
+    private static AnnotationNode getInvisibleAnnotation(Object node, List<AnnotationNode> annotations, String annotationType) {
+        if (node instanceof AnnotationIndex.IAnnotated) {
+            return ((AnnotationIndex.IAnnotated)node).getAnnotationIndex().getInvisible(annotations, annotationType);
+        }
+        return ASMHelper.getAnnotation(annotations, annotationType);
+    }
+
+    private static AnnotationNode getSingleAnnotation(Object node, List<AnnotationNode> annotations, boolean visible,
+            Class<? extends Annotation>... annotationClasses) {
+        if (annotations == null) {
+            return null;
+        }
+        
         List<AnnotationNode> nodes = new ArrayList<AnnotationNode>();
         for (Class<? extends Annotation> annotationClass : annotationClasses) {
-            AnnotationNode annotation = ASMHelper.getAnnotation(annotations, Type.getDescriptor(annotationClass));
+            String annotationType = AnnotationIndex.getDescriptor(annotationClass);
+            AnnotationNode annotation = visible ? ASMHelper.getVisibleAnnotation(node, annotations, annotationType)
+                    : ASMHelper.getInvisibleAnnotation(node, annotations, annotationType);
             if (annotation != null) {
                 nodes.add(annotation);
             }
@@ -596,25 +617,46 @@ public class ASMHelper {
      */
     @SuppressWarnings("unchecked")
     public static <T> T getAnnotationValue(AnnotationNode annotation, String key) {
-        boolean getNextValue = false;
-
         if (annotation == null || annotation.values == null) {
             return null;
         }
 
-        // Keys and value are stored in successive pairs, search for the key and if found return the following entry
-        for (Object value : annotation.values) {
-            if (getNextValue) {
-                return (T) value;
-            }
-            if (value.equals(key)) {
-                getNextValue = true;
+        // Keys and value are stored in successive pairs, search the keys only and if found return the following entry
+        List<Object> values = annotation.values;
+        for (int pos = 0, size = values.size() - 1; pos < size; pos += 2) {
+            if (key.equals(values.get(pos))) {
+                return (T)values.get(pos + 1);
             }
         }
 
         return null;
     }
 
+    /**
+     * Set the value of an annotation node, replacing the existing value if the
+     * key is already present
+     *
+     * @param annotation Annotation node to modify
+     * @param key Key to set
+     * @param value Value to set
+     */
+    public static void setAnnotationValue(AnnotationNode annotation, String key, Object value) {
+        if (annotation.values == null) {
+            annotation.values = new ArrayList<Object>();
+        }
+        
+        List<Object> values = annotation.values;
+        for (int pos = 0, size = values.size() - 1; pos < size; pos += 2) {
+            if (key.equals(values.get(pos))) {
+                values.set(pos + 1, value);
+                return;
+            }
+        }
+        
+        values.add(key);
+        values.add(value);
+    }
+
     /**
      * Get the value of an annotation node as the specified enum, returns
      * defaultValue if the annotation value is not set
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.spongepowered.asm.lib.Type;
+import org.spongepowered.asm.lib.tree.AnnotationNode;
+
+/**
+ * Index of the annotations on a member, keyed by annotation descriptor. Nodes
+ * which carry an index (see {@link IAnnotated}) are queried through the index
+ * by the annotation lookups in {@link ASMHelper} instead of by scanning their
+ * annotation lists.
+ * 
+ * <p>Annotation lists are mutable and are modified while mixins are applied,
+ * so the index does not assume ownership of them. Each lookup checks that the
+ * list is the one which was indexed, that its size is unchanged, and for hits
+ * that the indexed position still holds an annotation of the requested type.
+ * The index is rebuilt if any of these checks fail.</p>
+ */
+public final class AnnotationIndex {
+    
+    /**
+     * A node which carries an annotation index
+     */
+    public interface IAnnotated {
+        
+        /**
+         * Get the annotation index for this node
+         */
+        public abstract AnnotationIndex getAnnotationIndex();
+        
+    }
+    
+    /**
+     * Index of a single annotation list
+     */
+    static final class Lookup {
+        
+        private List<AnnotationNode> annotations;
+        
+        private int size;
+        
+        private final Map<String, Integer> positions = new HashMap<String, Integer>();
+        
+        AnnotationNode get(List<AnnotationNode> annotations, String desc) {
+            if (annotations == null) {
+                return null;
+            }
+            
+            if (annotations != this.annotations || annotations.size() != this.size) {
+                this.rebuild(annotations);
+            }
+            
+            Integer pos = this.positions.get(desc);
+            if (pos == null) {
+                return null;
+            }
+            
+            AnnotationNode annotation = annotations.get(pos.intValue());
+            if (!desc.equals(annotation.desc)) {
+                this.rebuild(annotations);
+                pos = this.positions.get(desc);
+                return pos != null ? annotations.get(pos.intValue()) : null;
+            }
+            return annotation;
+        }
+        
+        private void rebuild(List<AnnotationNode> annotations) {
+            this.annotations = annotations;
+            this.size = annotations.size();
+            this.positions.clear();
+            for (int pos = this.size - 1; pos >= 0; pos--) {
+                // Iterate backwards so that the first occurrence wins
+                this.positions.put(annotations.get(pos).desc, Integer.valueOf(pos));
+            }
+        }
+        
+    }
+    
+    /**
+     * Descriptors of annotation classes, so that they are only generated once
+     */
+    private static final Map<Class<?>, String> descriptors = new ConcurrentHashMap<Class<?>, String>();
+    
+    private final Lookup visible = new Lookup();
+    
+    private final Lookup invisible = new Lookup();
+    
+    /**
+     * Find a visible annotation in the supplied list
+     * 
+     * @param annotations the node's current visible annotations
+     * @param desc annotation descriptor
+     * @return matching annotation or null
+     */
+    public AnnotationNode getVisible(List<AnnotationNode> annotations, String desc) {
+        return this.visible.get(annotations, desc);
+    }
+    
+    /**
+     * Find an invisible annotation in the supplied list
+     * 
+     * @param annotations the node's current invisible annotations
+     * @param desc annotation descriptor
+     * @return matching annotation or null
+     */
+    public AnnotationNode getInvisible(List<AnnotationNode> annotations, String desc) {
+        return this.invisible.get(annotations, desc);
+    }
+    
+    /**
+     * Get the descriptor for the specified annotation class
+     * 
+     * @param annotationClass annotation class
+     * @return type descriptor
+     */
+    public static String getDescriptor(Class<? extends Annotation> annotationClass) {
+        String desc = AnnotationIndex.descriptors.get(annotationClass);
+        if (desc == null) {
+            desc = Type.getDescriptor(annotationClass);
+            AnnotationIndex.descriptors.put(annotationClass, desc);
+        }
+        return desc;
+    }
+    
+}
@@ -36,6 +36,7 @@ import org.spongepowered.asm.lib.tree.AbstractInsnNode;
 import org.spongepowered.asm.lib.tree.ClassNode;
 import org.spongepowered.asm.lib.tree.FrameNode;
 import org.spongepowered.asm.lib.tree.InsnList;
+import org.spongepowered.asm.lib.tree.InsnNode;
 import org.spongepowered.asm.lib.tree.LabelNode;
 import org.spongepowered.asm.lib.tree.LineNumberNode;
 import org.spongepowered.asm.lib.tree.LocalVariableNode;
@@ -72,13 +73,57 @@ public class Locals {
      * @param pos Start position
      */
     public static void loadLocals(Type[] locals, InsnList insns, int pos, int limit) {
-        for (; pos < locals.length && limit > 0; pos++) {
+        Locals.loadLocals(locals, insns, pos, limit, null);
+    }
+
+    /**
+     * Injects appropriate LOAD opcodes into the supplied InsnList for each
+     * entry in the supplied locals array starting at pos. Entries which are
+     * not read by the consumer, as indicated by the supplied mask, are pushed
+     * as a constant zero or null instead so that the local does not have to be
+     * kept live for the call.
+     * 
+     * @param locals Local types (can contain nulls for uninitialised, TOP, or
+     *      RETURN values in locals)
+     * @param insns Instruction List to inject into
+     * @param pos Start position
+     * @param limit Maximum number of locals to load
+     * @param read Mask of loaded entries which are read by the consumer,
+     *      entries beyond the end of the mask (or all entries if the mask is
+     *      null) are assumed to be read
+     */
+    public static void loadLocals(Type[] locals, InsnList insns, int pos, int limit, boolean[] read) {
+        for (int entry = 0; pos < locals.length && limit > 0; pos++) {
             if (locals[pos] != null) {
-                insns.add(new VarInsnNode(locals[pos].getOpcode(Opcodes.ILOAD), pos));
+                if (read == null || entry >= read.length || read[entry]) {
+                    insns.add(new VarInsnNode(locals[pos].getOpcode(Opcodes.ILOAD), pos));
+                } else {
+                    insns.add(new InsnNode(Locals.getZeroOpcode(locals[pos])));
+                }
+                entry++;
                 limit--;
             }
         }
     }
+    
+    private static int getZeroOpcode(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+            case Type.CHAR:
+            case Type.BYTE:
+            case Type.SHORT:
+            case Type.INT:
+                return Opcodes.ICONST_0;
+            case Type.FLOAT:
+                return Opcodes.FCONST_0;
+            case Type.LONG:
+                return Opcodes.LCONST_0;
+            case Type.DOUBLE:
+                return Opcodes.DCONST_0;
+            default:
+                return Opcodes.ACONST_NULL;
+        }
+    }
 
     /**
      * <p>Attempts to identify available locals at an arbitrary point in the
@@ -0,0 +1,392 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spongepowered.asm.util.Constants;
+import org.spongepowered.asm.util.PrettyPrinter;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Records nanosecond timings for the phases of mixin preparation and
+ * application, broken down by mixin and by target class. Timings are only
+ * collected while the profiler is active, when inactive {@link #begin} returns
+ * a shared no-op section so that instrumented code pays almost nothing.
+ * 
+ * <p>Sections may be nested, for example frame computation happens while a
+ * class is being written. Recorded times are exclusive, the time spent in a
+ * nested section is subtracted from the section which encloses it, so that
+ * the totals in the report are not counted twice. Sections must be ended in
+ * the reverse order to that in which they were begun, callers should end
+ * them in a <tt>finally</tt> block.</p>
+ */
+public final class Profiler {
+    
+    /**
+     * Phase names used by the mixin subsystem
+     */
+    public static final class Phase {
+        
+        public static final String SELECT = "select";
+        public static final String PREPARE = "prepare";
+        public static final String POST_INITIALISE = "postInitialise";
+        public static final String PRE_APPLY = "preApply";
+        public static final String CONTEXT = "context";
+        public static final String APPLY_MAIN = "apply.main";
+        public static final String APPLY_PREINJECT = "apply.preinject";
+        public static final String APPLY_ACCESSORS = "apply.accessors";
+        public static final String APPLY_INJECT = "apply.inject";
+        public static final String POST_APPLY = "postApply";
+        public static final String WRITE_CLASS = "writeClass";
+        public static final String FRAMES = "frames";
+        
+        private Phase() {}
+    }
+    
+    /**
+     * A running timer, call {@link #end} to record the elapsed time
+     */
+    public class Section {
+        
+        private final String phase, mixin, target;
+        
+        /**
+         * Section which was running on this thread when this one began
+         */
+        private final Section parent;
+        
+        private final long start;
+        
+        /**
+         * Time spent in sections nested inside this one
+         */
+        private long nested;
+        
+        Section(String phase, String mixin, String target, Section parent) {
+            this.phase = phase;
+            this.mixin = mixin;
+            this.target = target;
+            this.parent = parent;
+            this.start = System.nanoTime();
+        }
+        
+        /**
+         * Stop the timer and record the elapsed time, excluding time spent in
+         * nested sections
+         * 
+         * @return elapsed time in nanoseconds, including nested sections
+         */
+        public long end() {
+            long elapsed = System.nanoTime() - this.start;
+            Profiler.this.current.set(this.parent);
+            if (this.parent != null) {
+                this.parent.nested += elapsed;
+            }
+            Profiler.this.record(this.phase, this.mixin, this.target, elapsed - this.nested);
+            return elapsed;
+        }
+        
+    }
+    
+    /**
+     * Section returned when the profiler is not active
+     */
+    private class NullSection extends Section {
+        
+        NullSection() {
+            super(null, null, null, null);
+        }
+        
+        @Override
+        public long end() {
+            return 0L;
+        }
+        
+    }
+    
+    /**
+     * Accumulated timing for a phase, mixin and target tuple
+     */
+    public static final class Timing {
+        
+        private final String phase, mixin, target;
+        
+        private int count;
+        
+        private long total, max;
+        
+        Timing(String phase, String mixin, String target) {
+            this.phase = phase;
+            this.mixin = mixin;
+            this.target = target;
+        }
+        
+        void add(long elapsed) {
+            this.count++;
+            this.total += elapsed;
+            this.max = Math.max(this.max, elapsed);
+        }
+        
+        public String getPhase() {
+            return this.phase;
+        }
+        
+        public String getMixin() {
+            return this.mixin;
+        }
+        
+        public String getTarget() {
+            return this.target;
+        }
+        
+        public int getCount() {
+            return this.count;
+        }
+        
+        /**
+         * Get the total recorded time in nanoseconds, excluding time spent in
+         * nested sections
+         */
+        public long getTotal() {
+            return this.total;
+        }
+        
+        /**
+         * Get the longest single recorded time in nanoseconds
+         */
+        public long getMax() {
+            return this.max;
+        }
+        
+    }
+    
+    /**
+     * Sorts timings by total time, longest first
+     */
+    private static final Comparator<Timing> BY_TOTAL = new Comparator<Timing>() {
+        @Override
+        public int compare(Timing a, Timing b) {
+            return a.total < b.total ? 1 : a.total > b.total ? -1 : 0;
+        }
+    };
+    
+    /**
+     * Number of rows to include in each table of the text report
+     */
+    private static final int REPORT_ROWS = 50;
+
+    private static final Logger logger = LogManager.getLogger("mixin");
+    
+    /**
+     * Recorded timings, in the order they were first seen
+     */
+    private final Map<String, Timing> timings = new LinkedHashMap<String, Timing>();
+    
+    private final Section nullSection = new NullSection();
+    
+    /**
+     * Innermost running section on each thread
+     */
+    private final ThreadLocal<Section> current = new ThreadLocal<Section>();
+    
+    private boolean active;
+    
+    /**
+     * Get whether timings are being recorded
+     */
+    public boolean isActive() {
+        return this.active;
+    }
+    
+    /**
+     * Set whether timings should be recorded
+     * 
+     * @param active true to record timings
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+    
+    /**
+     * Begin timing a phase
+     * 
+     * @param phase Phase name
+     * @param mixin Mixin being processed, can be null
+     * @param target Target class being processed, can be null
+     * @return running section, call {@link Section#end} to record the time
+     */
+    public Section begin(String phase, Object mixin, Object target) {
+        if (!this.active) {
+            return this.nullSection;
+        }
+        
+        Section section = new Section(phase, mixin != null ? mixin.toString() : null, target != null ? target.toString() : null,
+                this.current.get());
+        this.current.set(section);
+        return section;
+    }
+
+    synchronized void record(String phase, String mixin, String target, long elapsed) {
+        String key = phase + "\0" + mixin + "\0" + target;
+        Timing timing = this.timings.get(key);
+        if (timing == null) {
+            timing = new Timing(phase, mixin, target);
+            this.timings.put(key, timing);
+        }
+        timing.add(elapsed);
+    }
+    
+    /**
+     * Get a snapshot of all recorded timings, sorted by total time
+     */
+    public synchronized List<Timing> getTimings() {
+        List<Timing> timings = new ArrayList<Timing>(this.timings.values());
+        Collections.sort(timings, Profiler.BY_TOTAL);
+        return timings;
+    }
+    
+    /**
+     * Discard all recorded timings
+     */
+    public synchronized void reset() {
+        this.timings.clear();
+    }
+    
+    /**
+     * Write the recorded timings to the <tt>profiler</tt> directory in the
+     * debug output folder. A CSV file containing every recorded timing is
+     * written along with a text summary showing the most expensive phases,
+     * mixins and target classes.
+     * 
+     * @return the CSV report file, or null if the report could not be written
+     */
+    public File dump() {
+        File outputDir = new File(Constants.DEBUG_OUTPUT_PATH, "profiler");
+        outputDir.mkdirs();
+        
+        String dateTime = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File csv = new File(outputDir, "mixin_timings_" + dateTime + ".csv");
+        File report = new File(outputDir, "mixin_timings_" + dateTime + ".txt");
+        List<Timing> timings = this.getTimings();
+        
+        StringBuilder sb = new StringBuilder("Phase,Mixin,Target,Count,Total (ns),Max (ns)\n");
+        for (Timing timing : timings) {
+            sb.append(String.format("%s,%s,%s,%d,%d,%d\n", timing.phase, Profiler.csv(timing.mixin), Profiler.csv(timing.target), timing.count,
+                    timing.total, timing.max));
+        }
+        
+        try {
+            Files.write(sb, csv, Charsets.UTF_8);
+        } catch (IOException ex) {
+            Profiler.logger.warn("Error writing profiler report {}: {}", csv, ex.getMessage());
+            return null;
+        }
+        
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(report);
+            this.printSummary(timings).print(new PrintStream(fos));
+        } catch (IOException ex) {
+            Profiler.logger.warn("Error writing profiler report {}: {}", report, ex.getMessage());
+        } finally {
+            IOUtils.closeQuietly(fos);
+        }
+        
+        Profiler.logger.info("Mixin profiler report written to {}", csv.getAbsolutePath());
+        return csv;
+    }
+
+    private PrettyPrinter printSummary(List<Timing> timings) {
+        PrettyPrinter printer = new PrettyPrinter();
+        printer.add("Mixin Profiler Report generated on %s", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).centre().hr();
+        
+        printer.add("Times exclude nested phases").add();
+        printer.add("Phases").hr('-');
+        this.printTable(printer, "Phase", Profiler.totals(timings, 0));
+        printer.add().add("Mixins").hr('-');
+        this.printTable(printer, "Mixin", Profiler.totals(timings, 1));
+        printer.add().add("Target classes").hr('-');
+        this.printTable(printer, "Target", Profiler.totals(timings, 2));
+        
+        return printer;
+    }
+
+    private void printTable(PrettyPrinter printer, String title, List<Timing> totals) {
+        DecimalFormat format = new DecimalFormat("###0.000");
+        printer.table(title, "Count", "Total (ms)", "Max (ms)");
+        for (int row = 0; row < totals.size() && row < Profiler.REPORT_ROWS; row++) {
+            Timing timing = totals.get(row);
+            printer.tr(timing.phase, timing.count, format.format(timing.total * 0.000001D), format.format(timing.max * 0.000001D));
+        }
+    }
+
+    /**
+     * Aggregate the supplied timings by phase (0), mixin (1) or target (2).
+     * The aggregated key is stored in the phase field of the returned timings.
+     */
+    private static List<Timing> totals(List<Timing> timings, int column) {
+        Map<String, Timing> totals = new LinkedHashMap<String, Timing>();
+        for (Timing timing : timings) {
+            String key = column == 0 ? timing.phase : column == 1 ? timing.mixin : timing.target;
+            if (key == null) {
+                continue;
+            }
+            Timing total = totals.get(key);
+            if (total == null) {
+                total = new Timing(key, null, null);
+                totals.put(key, total);
+            }
+            total.count += timing.count;
+            total.total += timing.total;
+            total.max = Math.max(total.max, timing.max);
+        }
+        List<Timing> sorted = new ArrayList<Timing>(totals.values());
+        Collections.sort(sorted, Profiler.BY_TOTAL);
+        return sorted;
+    }
+    
+    private static String csv(String value) {
+        return value != null ? value : "";
+    }
+    
+}